@@ -0,0 +1,25 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import com.launchdarkly.sdk.server.subsystems.DataStoreTypes.SerializedItemDescriptor;
+
+/**
+ * Serialized flags of representative sizes for the benchmarks.
+ */
+@SuppressWarnings("javadoc")
+final class BenchmarkData {
+  private BenchmarkData() {}
+
+  /**
+   * Returns a flag whose JSON is roughly the given number of bytes, with a list of user keys as its
+   * bulk, as is typical of large flags.
+   */
+  static SerializedItemDescriptor makeFlag(String key, int version, int approximateSize) {
+    StringBuilder sb = new StringBuilder("{\"key\":\"").append(key).append("\",\"version\":").append(version)
+        .append(",\"on\":true,\"variations\":[true,false],\"targets\":[{\"variation\":0,\"values\":[");
+    for (int i = 0; sb.length() < approximateSize; i++) {
+      sb.append(i == 0 ? "" : ",").append("\"user-key-").append(i).append('"');
+    }
+    sb.append("]}]}");
+    return new SerializedItemDescriptor(version, false, sb.toString());
+  }
+}
@@ -0,0 +1,66 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import com.launchdarkly.logging.LDLogger;
+import com.launchdarkly.sdk.server.subsystems.BigSegmentStoreTypes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Measures the Big Segment store's per-evaluation reads against {@link StubDynamoDbClient}, so that
+ * the results reflect building the request and decoding the response. Run with the gc profiler (the
+ * default for "./gradlew jmh") to see the allocation per operation.
+ */
+@SuppressWarnings("javadoc")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BigSegmentOperationsBenchmark {
+  private StubDynamoDbClient client;
+  private DynamoDbBigSegmentStoreImpl store;
+
+  @Setup
+  public void setUp() {
+    client = new StubDynamoDbClient();
+    Map<String, AttributeValue> item = new HashMap<>();
+    item.put("included", AttributeValue.builder().ss("segment1.g1", "segment2.g1").build());
+    item.put("synchronizedOn", AttributeValue.builder().n("1000").build());
+    client.getItemResult = item;
+    store = new DynamoDbBigSegmentStoreImpl(DynamoDbClientAdapter.of(client, true),
+        DynamoDb.bigSegmentStore("table").prefix("prefix"), LDLogger.none());
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    store.close();
+  }
+
+  @Benchmark
+  public BigSegmentStoreTypes.Membership getMembership() {
+    return store.getMembership("userhash");
+  }
+
+  @Benchmark
+  public BigSegmentStoreTypes.StoreMetadata getMetadata() {
+    return store.getMetadata();
+  }
+}
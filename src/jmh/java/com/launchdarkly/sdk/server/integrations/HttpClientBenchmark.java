@@ -0,0 +1,125 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import com.launchdarkly.logging.LDLogger;
+import com.launchdarkly.sdk.server.DataModel;
+import com.launchdarkly.sdk.server.integrations.DynamoDbStoreBuilder.HttpClientType;
+import com.launchdarkly.sdk.server.subsystems.DataStoreTypes.DataKind;
+import com.launchdarkly.sdk.server.subsystems.DataStoreTypes.FullDataSet;
+import com.launchdarkly.sdk.server.subsystems.DataStoreTypes.KeyedItems;
+import com.launchdarkly.sdk.server.subsystems.DataStoreTypes.SerializedItemDescriptor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughput;
+import software.amazon.awssdk.services.dynamodb.model.ResourceInUseException;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+
+/**
+ * Compares the HTTP client options under concurrent load, by reading one flag from many threads.
+ * <p>
+ * Unlike the other benchmarks, this one makes real requests, so that connection handling is part of
+ * the measurement. It needs a DynamoDB endpoint, by default a local DynamoDB instance on port 8000 as
+ * for the tests; set the system property {@code dynamodb.endpoint} to use another. The throughput
+ * results show how many reads each configuration sustains, and the sample-time results show the
+ * latency percentiles, including time spent waiting for a connection when the pool is smaller than
+ * the number of threads.
+ */
+@SuppressWarnings("javadoc")
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class HttpClientBenchmark {
+  private static final String TABLE_NAME = "LD_DYNAMODB_BENCHMARK_TABLE";
+
+  @Param({"APACHE", "URL_CONNECTION", "ASYNC"})
+  public String httpClient;
+
+  @Param({"4", "50"})
+  public int maxConnections;
+
+  private DynamoDbDataStoreImpl store;
+
+  @Setup
+  public void setUp() {
+    URI endpoint = URI.create(System.getProperty("dynamodb.endpoint", "http://localhost:8000"));
+    StaticCredentialsProvider credentials = StaticCredentialsProvider.create(AwsBasicCredentials.create("key", "secret"));
+    createTableIfNecessary(endpoint, credentials);
+
+    DynamoDbStoreBuilder<?> builder = DynamoDb.dataStore(TABLE_NAME)
+        .endpoint(endpoint)
+        .region(Region.US_EAST_1)
+        .credentials(credentials)
+        .maxConnections(maxConnections);
+    if (httpClient.equals("ASYNC")) {
+      builder.asyncClient(true);
+    } else {
+      builder.httpClient(HttpClientType.valueOf(httpClient));
+    }
+    store = new DynamoDbDataStoreImpl(builder.makeClient(), builder, LDLogger.none());
+    Map.Entry<String, SerializedItemDescriptor> flag =
+        new AbstractMap.SimpleEntry<>("flag1", BenchmarkData.makeFlag("flag1", 1, 500));
+    store.init(new FullDataSet<>(Collections.<Map.Entry<DataKind, KeyedItems<SerializedItemDescriptor>>>singletonList(
+        new AbstractMap.SimpleEntry<>(DataModel.FEATURES, new KeyedItems<>(Collections.singletonList(flag))))));
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    store.close();
+  }
+
+  @Benchmark
+  public SerializedItemDescriptor get() {
+    return store.get(DataModel.FEATURES, "flag1");
+  }
+
+  private static void createTableIfNecessary(URI endpoint, StaticCredentialsProvider credentials) {
+    try (DynamoDbClient client = DynamoDbClient.builder().endpointOverride(endpoint).region(Region.US_EAST_1)
+        .credentialsProvider(credentials).build()) {
+      client.createTable(CreateTableRequest.builder()
+          .tableName(TABLE_NAME)
+          .keySchema(
+              KeySchemaElement.builder().attributeName(DynamoDbStoreImplBase.PARTITION_KEY).keyType(KeyType.HASH).build(),
+              KeySchemaElement.builder().attributeName(DynamoDbStoreImplBase.SORT_KEY).keyType(KeyType.RANGE).build())
+          .attributeDefinitions(
+              AttributeDefinition.builder().attributeName(DynamoDbStoreImplBase.PARTITION_KEY)
+                .attributeType(ScalarAttributeType.S).build(),
+              AttributeDefinition.builder().attributeName(DynamoDbStoreImplBase.SORT_KEY)
+                .attributeType(ScalarAttributeType.S).build())
+          .provisionedThroughput(ProvisionedThroughput.builder().readCapacityUnits(1000L).writeCapacityUnits(1000L).build())
+          .build());
+    } catch (ResourceInUseException e) {
+      // the table already exists
+    }
+  }
+}
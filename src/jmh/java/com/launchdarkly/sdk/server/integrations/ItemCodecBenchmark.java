@@ -0,0 +1,80 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import com.launchdarkly.logging.LDLogger;
+import com.launchdarkly.sdk.server.DataModel;
+import com.launchdarkly.sdk.server.subsystems.DataStoreTypes.SerializedItemDescriptor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Measures converting flags to and from DynamoDB items, and computing an item's size, without any
+ * requests. {@code compressionThreshold} of -1 means compression is disabled.
+ */
+@SuppressWarnings("javadoc")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ItemCodecBenchmark {
+  @Param({"200", "20000"})
+  public int itemSize;
+
+  @Param({"-1", "1024"})
+  public int compressionThreshold;
+
+  private DynamoDbDataStoreImpl store;
+  private SerializedItemDescriptor flag;
+  private Map<String, AttributeValue> encodedFlag;
+
+  @Setup
+  public void setUp() {
+    store = new DynamoDbDataStoreImpl(DynamoDbClientAdapter.of(new StubDynamoDbClient(), true),
+        DynamoDb.dataStore("table").itemCompressionThreshold(compressionThreshold), LDLogger.none());
+    flag = BenchmarkData.makeFlag("flag1", 1, itemSize);
+    encodedFlag = store.marshalItem(DataModel.FEATURES, "flag1", flag);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    store.close();
+  }
+
+  @Benchmark
+  public Map<String, AttributeValue> marshalItem() {
+    return store.marshalItem(DataModel.FEATURES, "flag1", flag);
+  }
+
+  @Benchmark
+  public SerializedItemDescriptor unmarshalItem() {
+    return store.unmarshalItem(DataModel.FEATURES, encodedFlag);
+  }
+
+  @Benchmark
+  public int itemSize() {
+    return DynamoDbDataStoreImpl.itemSize(encodedFlag);
+  }
+
+  @Benchmark
+  public int utf8Length() {
+    return DynamoDbDataStoreImpl.utf8Length(flag.getSerializedItem());
+  }
+}
@@ -0,0 +1,92 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import com.launchdarkly.sdk.server.subsystems.BigSegmentStoreTypes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Compares decoding a Big Segment membership item into the SDK's map-based membership with
+ * {@link CompactMembership}. Run with the gc profiler (the default for "./gradlew jmh") to see the
+ * allocation per operation.
+ */
+@SuppressWarnings("javadoc")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MembershipDecodingBenchmark {
+  @Param({"4", "50", "500"})
+  public int segmentCount;
+
+  private Map<String, AttributeValue> item;
+  private List<String> probes;
+
+  @Setup
+  public void setUp() {
+    List<String> included = new ArrayList<>();
+    List<String> excluded = new ArrayList<>();
+    probes = new ArrayList<>();
+    for (int i = 0; i < segmentCount; i++) {
+      String ref = "big-segment-key-" + i + ".g" + (1000 + i);
+      (i % 4 == 0 ? excluded : included).add(ref);
+      if (i % 10 == 0) {
+        probes.add(ref);
+        probes.add("not-a-member-" + i + ".g1");
+      }
+    }
+    item = new HashMap<>();
+    item.put("included", AttributeValue.builder().ss(included).build());
+    if (!excluded.isEmpty()) {
+      item.put("excluded", AttributeValue.builder().ss(excluded).build());
+    }
+  }
+
+  @Benchmark
+  public BigSegmentStoreTypes.Membership decodeToMap() {
+    AttributeValue excluded = item.get("excluded");
+    return BigSegmentStoreTypes.createMembershipFromSegmentRefs(item.get("included").ss(),
+        excluded == null ? null : excluded.ss());
+  }
+
+  @Benchmark
+  public BigSegmentStoreTypes.Membership decodeCompact() {
+    return DynamoDbBigSegmentStoreImpl.membershipFromItem(item);
+  }
+
+  @Benchmark
+  public void decodeToMapAndCheck(Blackhole bh) {
+    check(decodeToMap(), bh);
+  }
+
+  @Benchmark
+  public void decodeCompactAndCheck(Blackhole bh) {
+    check(decodeCompact(), bh);
+  }
+
+  private void check(BigSegmentStoreTypes.Membership membership, Blackhole bh) {
+    for (int i = 0, n = probes.size(); i < n; i++) {
+      bh.consume(membership.checkMembership(probes.get(i)));
+    }
+  }
+}
@@ -0,0 +1,116 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import com.launchdarkly.logging.LDLogger;
+import com.launchdarkly.sdk.server.DataModel;
+import com.launchdarkly.sdk.server.subsystems.DataStoreTypes.DataKind;
+import com.launchdarkly.sdk.server.subsystems.DataStoreTypes.FullDataSet;
+import com.launchdarkly.sdk.server.subsystems.DataStoreTypes.KeyedItems;
+import com.launchdarkly.sdk.server.subsystems.DataStoreTypes.SerializedItemDescriptor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+/**
+ * Measures the store's operations end to end, against {@link StubDynamoDbClient} so that the results
+ * reflect the store's own overhead (request building, response decoding, and the asynchronous
+ * plumbing) rather than network time.
+ */
+@SuppressWarnings("javadoc")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StoreOperationsBenchmark {
+  @Param({"1000"})
+  public int itemCount;
+
+  private StubDynamoDbClient client;
+  private DynamoDbDataStoreImpl store;
+  private SerializedItemDescriptor flag;
+  private FullDataSet<SerializedItemDescriptor> allData;
+  private List<WriteRequest> writeRequests;
+  private int version;
+
+  @Setup
+  public void setUp() {
+    client = new StubDynamoDbClient();
+    store = new DynamoDbDataStoreImpl(DynamoDbClientAdapter.of(client, true), DynamoDb.dataStore("table"),
+        LDLogger.none());
+    flag = BenchmarkData.makeFlag("flag1", 1, 500);
+    client.getItemResult = store.marshalItem(DataModel.FEATURES, "flag1", flag);
+
+    List<Map.Entry<String, SerializedItemDescriptor>> flags = new ArrayList<>();
+    List<Map<String, AttributeValue>> queryItems = new ArrayList<>();
+    writeRequests = new ArrayList<>();
+    for (int i = 0; i < itemCount; i++) {
+      String key = "flag" + i;
+      SerializedItemDescriptor item = BenchmarkData.makeFlag(key, 1, 500);
+      flags.add(new AbstractMap.SimpleEntry<>(key, item));
+      Map<String, AttributeValue> encoded = store.marshalItem(DataModel.FEATURES, key, item);
+      queryItems.add(encoded);
+      writeRequests.add(WriteRequest.builder().putRequest(b -> b.item(encoded)).build());
+    }
+    client.queryResult = queryItems;
+    allData = new FullDataSet<>(Collections.<Map.Entry<DataKind, KeyedItems<SerializedItemDescriptor>>>singletonList(
+        new AbstractMap.SimpleEntry<>(DataModel.FEATURES, new KeyedItems<>(flags))));
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    store.close();
+  }
+
+  @Benchmark
+  public SerializedItemDescriptor get() {
+    return store.get(DataModel.FEATURES, "flag1");
+  }
+
+  @Benchmark
+  public KeyedItems<SerializedItemDescriptor> getAll() {
+    return store.getAll(DataModel.FEATURES);
+  }
+
+  @Benchmark
+  public boolean upsert() {
+    return store.upsert(DataModel.FEATURES, "flag1", new SerializedItemDescriptor(++version, false,
+        flag.getSerializedItem()));
+  }
+
+  @Benchmark
+  public boolean isInitialized() {
+    return store.isInitialized();
+  }
+
+  @Benchmark
+  public void init() {
+    store.init(allData);
+  }
+
+  @Benchmark
+  public void batchWriteRequests() {
+    DynamoDbDataStoreImpl.batchWriteRequests(client, "table", writeRequests);
+  }
+}
@@ -0,0 +1,55 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+
+/**
+ * An in-memory DynamoDB client that returns canned responses without any I/O, so that benchmarks
+ * measure only the store's own work. Any operation that isn't overridden here throws
+ * {@code UnsupportedOperationException}, as the AWS SDK's default interface methods do.
+ */
+@SuppressWarnings("javadoc")
+final class StubDynamoDbClient implements DynamoDbClient {
+  volatile Map<String, AttributeValue> getItemResult = Collections.emptyMap();
+  volatile List<Map<String, AttributeValue>> queryResult = Collections.emptyList();
+
+  @Override
+  public String serviceName() {
+    return SERVICE_NAME;
+  }
+
+  @Override
+  public void close() {}
+
+  @Override
+  public GetItemResponse getItem(GetItemRequest request) {
+    return GetItemResponse.builder().item(getItemResult).build();
+  }
+
+  @Override
+  public PutItemResponse putItem(PutItemRequest request) {
+    return PutItemResponse.builder().build();
+  }
+
+  @Override
+  public QueryResponse query(QueryRequest request) {
+    return QueryResponse.builder().items(queryResult).build();
+  }
+
+  @Override
+  public BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+    return BatchWriteItemResponse.builder().build();
+  }
+}
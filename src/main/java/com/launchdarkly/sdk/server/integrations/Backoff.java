@@ -0,0 +1,34 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.RequestLimitExceededException;
+
+/**
+ * Retry timing shared by the operations that resubmit the unprocessed part of a DynamoDB batch request.
+ */
+final class Backoff {
+  static final int MAX_ATTEMPTS = 10;
+  static final long BASE_DELAY_MILLIS = 50;
+  static final long MAX_DELAY_MILLIS = 5000;
+
+  private Backoff() {}
+
+  // Exponential backoff with "equal jitter" (see https://aws.amazon.com/blogs/architecture/exponential-backoff-and-jitter/):
+  // a random delay between half and all of the current ceiling, so concurrent retries don't line up.
+  static long delayMillis(int attempt) {
+    long ceiling = Math.min(MAX_DELAY_MILLIS, BASE_DELAY_MILLIS << Math.min(attempt, 16));
+    return ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+  }
+
+  // True if DynamoDB rejected a request because the table or account is over its capacity or request
+  // rate limit. The AWS client has already retried these itself, but it's still better to slow down
+  // and try again than to fail the whole operation.
+  static boolean isThrottling(Throwable e) {
+    return e instanceof ProvisionedThroughputExceededException ||
+        e instanceof RequestLimitExceededException ||
+        (e instanceof SdkServiceException && ((SdkServiceException)e).isThrottlingException());
+  }
+}
@@ -0,0 +1,96 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import static com.launchdarkly.sdk.server.integrations.CollectionHelpers.mapOf;
+
+import com.launchdarkly.logging.LDLogger;
+import com.launchdarkly.sdk.server.integrations.DynamoDbStoreMetrics.Operation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+/**
+ * Splits a list of write requests into DynamoDB-sized batches and sends them with
+ * {@code BatchWriteItem}.
+ * <p>
+ * Up to {@code maxInFlight} batches can be in progress at once, each started on the given executor.
+ * The future returned by {@link #write(List, Operation)} does not complete until every batch has been
+ * acknowledged, so a caller can rely on ordering between two calls (for instance, writing the
+ * "$inited" marker only after all of the data).
+ * <p>
+ * DynamoDB does not reject a batch outright when the table is out of write capacity; it writes as many
+ * items as it can and returns the rest as {@code UnprocessedItems}. Those are re-submitted after a
+ * jittered exponential backoff. The number of batches allowed in flight is also adjusted the way TCP
+ * congestion control does it (additive increase, multiplicative decrease): it is halved whenever a
+ * batch comes back throttled, and grows by roughly one batch per round of successful writes, up to
+ * {@code maxInFlight}. The window is kept for the lifetime of the writer, so a store that has learned
+ * its table's capacity during one init() starts the next one at that level.
+ */
+final class BatchWriter {
+  static final int MAX_BATCH_SIZE = 25; // DynamoDB's limit for BatchWriteItem
+
+  private final DynamoDbClientAdapter client;
+  private final String tableName;
+  private final Executor executor;
+  private final CongestionWindow window;
+  private final StoreMetrics metrics;
+  private final LDLogger logger;
+
+  BatchWriter(DynamoDbClientAdapter client, String tableName, Executor executor, int maxInFlight,
+      StoreMetrics metrics, LDLogger logger) {
+    this.client = client;
+    this.tableName = tableName;
+    this.executor = executor;
+    this.window = new CongestionWindow(maxInFlight);
+    this.metrics = metrics;
+    this.logger = logger;
+  }
+
+  CompletableFuture<Void> write(List<WriteRequest> requests, Operation operation) {
+    List<Supplier<CompletableFuture<Void>>> tasks = new ArrayList<>();
+    for (int i = 0; i < requests.size(); i += MAX_BATCH_SIZE) {
+      int limit = (i + MAX_BATCH_SIZE < requests.size()) ? (i + MAX_BATCH_SIZE) : requests.size();
+      List<WriteRequest> batch = requests.subList(i, limit);
+      tasks.add(() -> writeBatch(batch, operation, 1));
+    }
+    return FanOut.run(tasks, window, executor).thenApply(results -> null);
+  }
+
+  private CompletableFuture<Void> writeBatch(List<WriteRequest> batch, Operation operation, int attempt) {
+    BatchWriteItemRequest request = BatchWriteItemRequest.builder()
+        .requestItems(mapOf(tableName, batch))
+        .returnConsumedCapacity(metrics.returnConsumedCapacity())
+        .build();
+    return client.batchWriteItem(request).handle((BatchWriteItemResponse resp, Throwable error) -> {
+      if (error == null) {
+        metrics.capacityConsumed(operation, resp.consumedCapacity());
+        return resp.unprocessedItems() == null ? null : resp.unprocessedItems().get(tableName);
+      }
+      RuntimeException e = DynamoDbClientAdapter.asUnchecked(error);
+      if (Backoff.isThrottling(e) && attempt < Backoff.MAX_ATTEMPTS) {
+        return batch;
+      }
+      throw e;
+    }).thenCompose(unprocessed -> {
+      if (unprocessed == null || unprocessed.isEmpty()) {
+        window.onSuccess();
+        return CompletableFuture.completedFuture(null);
+      }
+      window.onThrottle();
+      metrics.requestThrottled(operation);
+      if (attempt >= Backoff.MAX_ATTEMPTS) {
+        throw new RuntimeException(String.format(
+            "DynamoDB did not process %d items in table %s after %d attempts", unprocessed.size(), tableName, attempt));
+      }
+      long delay = Backoff.delayMillis(attempt);
+      logger.debug("DynamoDB returned {} unprocessed items; retrying in {}ms", unprocessed.size(), delay);
+      return client.delay(delay).thenCompose(v -> writeBatch(unprocessed, operation, attempt + 1));
+    });
+  }
+}
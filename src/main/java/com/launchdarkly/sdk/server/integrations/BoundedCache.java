@@ -0,0 +1,131 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A size-bounded, time-limited in-memory cache with least-recently-used eviction.
+ * <p>
+ * The cache is split into segments by key hash, each an access-ordered {@link LinkedHashMap} with its
+ * own lock, so that concurrent readers of different keys rarely contend. Each segment evicts its own
+ * least recently used entry when it is full, which approximates LRU for the cache as a whole.
+ * <p>
+ * A cached value can be null, so that the absence of something can be cached as well. To avoid
+ * caching a value that was loaded before a {@link #clear()} but arrives after it, callers take a
+ * {@link #generation()} before they start loading and pass it to {@link #put(Object, Object, long)};
+ * the value is discarded if the cache has been cleared in the meantime.
+ */
+final class BoundedCache<K, V> {
+  private static final int MAX_SEGMENTS = 16;
+
+  private final Segment<K, V>[] segments;
+  private final long ttlNanos;
+  private final LongSupplier nanoTime;
+  private final AtomicLong generation = new AtomicLong();
+
+  BoundedCache(int maxSize, Duration ttl) {
+    this(maxSize, ttl, System::nanoTime);
+  }
+
+  @SuppressWarnings({ "rawtypes", "unchecked" })
+  BoundedCache(int maxSize, Duration ttl, LongSupplier nanoTime) {
+    int segmentCount = Math.max(1, Math.min(MAX_SEGMENTS, maxSize / MAX_SEGMENTS));
+    int segmentSize = Math.max(1, (maxSize + segmentCount - 1) / segmentCount);
+    segments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      segments[i] = new Segment<>(segmentSize);
+    }
+    this.ttlNanos = ttl.toNanos();
+    this.nanoTime = nanoTime;
+  }
+
+  /**
+   * A cached value, which may be null.
+   */
+  static final class Entry<V> {
+    final V value;
+    final long expiresAt;
+
+    Entry(V value, long expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  /**
+   * Returns the cached entry for a key, or null if there is none or it has expired.
+   */
+  Entry<V> get(K key) {
+    Segment<K, V> segment = segmentFor(key);
+    synchronized (segment) {
+      Entry<V> entry = segment.get(key);
+      if (entry == null) {
+        return null;
+      }
+      if (entry.expiresAt - nanoTime.getAsLong() <= 0) {
+        segment.remove(key);
+        return null;
+      }
+      return entry;
+    }
+  }
+
+  long generation() {
+    return generation.get();
+  }
+
+  /**
+   * Caches a value, unless the cache has been cleared since {@code generationAtStart} was obtained.
+   */
+  void put(K key, V value, long generationAtStart) {
+    Segment<K, V> segment = segmentFor(key);
+    synchronized (segment) {
+      if (generation.get() == generationAtStart) {
+        segment.put(key, new Entry<>(value, nanoTime.getAsLong() + ttlNanos));
+      }
+    }
+  }
+
+  void clear() {
+    generation.incrementAndGet();
+    for (Segment<K, V> segment: segments) {
+      synchronized (segment) {
+        segment.clear();
+      }
+    }
+  }
+
+  int size() {
+    int size = 0;
+    for (Segment<K, V> segment: segments) {
+      synchronized (segment) {
+        size += segment.size();
+      }
+    }
+    return size;
+  }
+
+  private Segment<K, V> segmentFor(K key) {
+    int h = key.hashCode();
+    h ^= (h >>> 16); // spread the high bits, as HashMap does
+    return segments[(h & 0x7fffffff) % segments.length];
+  }
+
+  @SuppressWarnings("serial")
+  private static final class Segment<K, V> extends LinkedHashMap<K, BoundedCache.Entry<V>> {
+    private final int maxSize;
+
+    Segment(int maxSize) {
+      super(16, 0.75f, true);
+      this.maxSize = maxSize;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, BoundedCache.Entry<V>> eldest) {
+      return size() > maxSize;
+    }
+  }
+}
@@ -0,0 +1,141 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import com.launchdarkly.sdk.server.subsystems.BigSegmentStoreTypes;
+
+import java.util.List;
+
+/**
+ * A Big Segment membership for a user who is in many segments, using much less memory than a map.
+ * <p>
+ * The segment references are stored in a single open-addressed hash table: one array of strings and
+ * one parallel array of flags, rather than a node object per entry plus a table. Decoding a large
+ * membership item therefore allocates three objects regardless of the number of segments, and a
+ * lookup does no allocation at all. The strings themselves are the ones that the AWS SDK already
+ * created when it parsed the response, so they are not copied.
+ * <p>
+ * For a user in only a few segments, the SDK's own implementations from
+ * {@link BigSegmentStoreTypes#createMembershipFromSegmentRefs(Iterable, Iterable)} are already small,
+ * so {@link #fromSegmentRefs(List, List)} uses those below {@link #MIN_SIZE}.
+ * <p>
+ * Like the SDK's implementations, which only compare equal to instances of their own class, a
+ * CompactMembership is only ever equal to another CompactMembership, even if an SDK membership gives
+ * the same answers. Nothing in the SDK or this library compares memberships of different sizes, so
+ * this only matters to tests.
+ */
+final class CompactMembership implements BigSegmentStoreTypes.Membership {
+  static final int MIN_SIZE = 8;
+
+  private final String[] refs;
+  private final boolean[] included;
+  private final int mask;
+
+  private CompactMembership(String[] refs, boolean[] included) {
+    this.refs = refs;
+    this.included = included;
+    this.mask = refs.length - 1;
+  }
+
+  /**
+   * Creates a membership from the included and excluded segment references, either of which may be
+   * null. As with the SDK's method, a reference that is in both lists counts as included.
+   */
+  static BigSegmentStoreTypes.Membership fromSegmentRefs(List<String> includedRefs, List<String> excludedRefs) {
+    int count = (includedRefs == null ? 0 : includedRefs.size()) + (excludedRefs == null ? 0 : excludedRefs.size());
+    if (count < MIN_SIZE) {
+      return BigSegmentStoreTypes.createMembershipFromSegmentRefs(includedRefs, excludedRefs);
+    }
+    int capacity = Integer.highestOneBit(count * 2 - 1) << 1; // keeps the table at most half full
+    CompactMembership m = new CompactMembership(new String[capacity], new boolean[capacity]);
+    if (excludedRefs != null) {
+      for (int i = 0, n = excludedRefs.size(); i < n; i++) {
+        m.add(excludedRefs.get(i), false);
+      }
+    }
+    if (includedRefs != null) {
+      for (int i = 0, n = includedRefs.size(); i < n; i++) {
+        m.add(includedRefs.get(i), true);
+      }
+    }
+    return m;
+  }
+
+  @Override
+  public Boolean checkMembership(String segmentRef) {
+    if (segmentRef == null) {
+      return null;
+    }
+    for (int i = indexFor(segmentRef); ; i = (i + 1) & mask) {
+      String ref = refs[i];
+      if (ref == null) {
+        return null;
+      }
+      if (ref.equals(segmentRef)) {
+        return included[i]; // autoboxing uses the shared Boolean instances
+      }
+    }
+  }
+
+  private void add(String segmentRef, boolean isIncluded) {
+    for (int i = indexFor(segmentRef); ; i = (i + 1) & mask) {
+      String ref = refs[i];
+      if (ref == null || ref.equals(segmentRef)) {
+        refs[i] = segmentRef;
+        included[i] = isIncluded;
+        return;
+      }
+    }
+  }
+
+  private int indexFor(String segmentRef) {
+    int h = segmentRef.hashCode();
+    return (h ^ (h >>> 16)) & mask;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof CompactMembership)) {
+      return false;
+    }
+    CompactMembership other = (CompactMembership)o;
+    int size = 0;
+    for (int i = 0; i < refs.length; i++) {
+      if (refs[i] != null) {
+        size++;
+        if (!Boolean.valueOf(included[i]).equals(other.checkMembership(refs[i]))) {
+          return false;
+        }
+      }
+    }
+    int otherSize = 0;
+    for (String ref: other.refs) {
+      if (ref != null) {
+        otherSize++;
+      }
+    }
+    return size == otherSize;
+  }
+
+  @Override
+  public int hashCode() {
+    int h = 0;
+    for (int i = 0; i < refs.length; i++) {
+      if (refs[i] != null) {
+        h += refs[i].hashCode() ^ (included[i] ? 1231 : 1237); // order-independent
+      }
+    }
+    return h;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("CompactMembership(");
+    boolean first = true;
+    for (int i = 0; i < refs.length; i++) {
+      if (refs[i] != null) {
+        sb.append(first ? "" : ",").append(refs[i]).append('=').append(included[i]);
+        first = false;
+      }
+    }
+    return sb.append(')').toString();
+  }
+}
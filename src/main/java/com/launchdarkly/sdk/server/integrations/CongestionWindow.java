@@ -0,0 +1,65 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A non-blocking counting semaphore whose number of permits can follow an AIMD rule (additive increase,
+ * multiplicative decrease), the way TCP congestion control does.
+ * <p>
+ * If {@link #onSuccess()} and {@link #onThrottle()} are never called, this is just a fixed limit on the
+ * number of concurrent operations. Callers that fail to get a permit register a callback that will be
+ * run the next time a permit is released, so nothing ever waits on a thread for a permit.
+ */
+final class CongestionWindow {
+  final int max;
+  private double size;
+  private int inFlight;
+  private List<Runnable> waiters = new ArrayList<>();
+
+  CongestionWindow(int max) {
+    this.max = Math.max(1, max);
+    this.size = this.max;
+  }
+
+  /**
+   * Attempts to take a permit. If none is available, {@code onAvailable} will be called (once) when
+   * one might be.
+   */
+  synchronized boolean tryAcquire(Runnable onAvailable) {
+    if (inFlight < (int)size) {
+      inFlight++;
+      return true;
+    }
+    waiters.add(onAvailable);
+    return false;
+  }
+
+  void release() {
+    List<Runnable> toNotify;
+    synchronized (this) {
+      inFlight--;
+      if (waiters.isEmpty()) {
+        return;
+      }
+      toNotify = waiters;
+      waiters = new ArrayList<>();
+    }
+    for (Runnable r: toNotify) {
+      r.run();
+    }
+  }
+
+  synchronized void onSuccess() {
+    // Adding 1/size per acknowledged operation grows the window by about one per full window.
+    size = Math.min(max, size + 1.0 / size);
+  }
+
+  synchronized void onThrottle() {
+    size = Math.max(1, size / 2);
+  }
+
+  synchronized int size() {
+    return (int)size;
+  }
+}
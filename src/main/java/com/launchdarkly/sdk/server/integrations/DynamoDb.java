@@ -58,6 +58,9 @@ public abstract class DynamoDb {
    * If you are using the same DynamoDB table as a data store for multiple LaunchDarkly
    * environments, use the {@link DynamoDbStoreBuilder#prefix(String)} option and choose a 
    * different prefix string for each, so they will not interfere with each other's data.
+   * <p>
+   * The store that the builder creates implements {@link DynamoDbDataStore}, which can read the
+   * versions of items without reading their data.
    * 
    * @param tableName the table name in DynamoDB (must already exist)
    * @return a data store configuration object
@@ -99,6 +102,10 @@ public abstract class DynamoDb {
    * 
    * Note that the specified table must already exist in DynamoDB. It must have a partition key
    * of "namespace", and a sort key of "key".
+   * <p>
+   * The same builder can be passed to {@link DynamoDbBigSegmentWriter} to write Big Segment data
+   * to the table. The store that it builds implements {@link DynamoDbBigSegmentStore}, which can
+   * read the memberships of many users at once.
    * 
    * @param tableName the table name in DynamoDB (must already exist)
    * @return a Big Segment store configuration object
@@ -0,0 +1,39 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import com.launchdarkly.sdk.server.subsystems.BigSegmentStore;
+import com.launchdarkly.sdk.server.subsystems.BigSegmentStoreTypes;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * The DynamoDB Big Segment store, with an additional method for reading the memberships of many
+ * users at once.
+ * <p>
+ * The store created by {@link DynamoDb#bigSegmentStore(String)} implements this interface. An
+ * application that knows which users it is about to evaluate can build the store itself, give it to
+ * the SDK, and then call {@link #getMemberships(Collection)} to load all of their memberships in a few
+ * {@code BatchGetItem} requests rather than one request per user:
+ * <pre><code>
+ *     DynamoDbBigSegmentStore store = (DynamoDbBigSegmentStore)DynamoDb.bigSegmentStore("table2")
+ *         .membershipCacheSize(10000)
+ *         .build(new ClientContext(sdkKey));
+ *     LDConfig config = new LDConfig.Builder()
+ *         .bigSegments(Components.bigSegments(context -&gt; store))
+ *         .build();
+ * </code></pre>
+ * If the membership cache is enabled with {@link DynamoDbStoreBuilder#membershipCacheSize(int)}, the
+ * results go into it, so the SDK's own queries for those users don't need another request.
+ */
+public interface DynamoDbBigSegmentStore extends BigSegmentStore {
+  /**
+   * Reads the Big Segment memberships of many users at once.
+   * <p>
+   * The result has an entry for every requested user hash; the value is null if the user is not in
+   * any Big Segments.
+   *
+   * @param userHashes the hashed user keys, as passed to {@link #getMembership(String)}
+   * @return a map of user hashes to memberships
+   */
+  Map<String, BigSegmentStoreTypes.Membership> getMemberships(Collection<String> userHashes);
+}
@@ -1,46 +1,209 @@
 package com.launchdarkly.sdk.server.integrations;
 
-import static com.launchdarkly.sdk.server.subsystems.BigSegmentStoreTypes.createMembershipFromSegmentRefs;
+import static com.launchdarkly.sdk.server.integrations.CollectionHelpers.mapOf;
+import static com.launchdarkly.sdk.server.integrations.DynamoDbClientAdapter.join;
 
 import com.launchdarkly.logging.LDLogger;
-import com.launchdarkly.sdk.server.subsystems.BigSegmentStore;
+import com.launchdarkly.sdk.server.integrations.DynamoDbStoreBuilder.ReadOperation;
+import com.launchdarkly.sdk.server.integrations.DynamoDbStoreMetrics.Operation;
 import com.launchdarkly.sdk.server.subsystems.BigSegmentStoreTypes;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
-import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
 import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
 
-final class DynamoDbBigSegmentStoreImpl extends DynamoDbStoreImplBase implements BigSegmentStore {
-  private final static String MEMBERSHIP_KEY = "big_segments_user";
-  private final static String INCLUDED_ATTR = "included";
-  private final static String EXCLUDED_ATTR = "excluded";
+/**
+ * Internal implementation of the DynamoDB Big Segment store.
+ * <p>
+ * getMemberships(), from the public DynamoDbBigSegmentStore interface, reads its users in batches of
+ * up to 100 BatchGetItem keys, several batches at a time. If the membership cache is enabled, the
+ * results go into it, so the SDK's own getMembership() calls for those users don't need another
+ * request.
+ */
+final class DynamoDbBigSegmentStoreImpl extends DynamoDbStoreImplBase implements DynamoDbBigSegmentStore {
+  final static String MEMBERSHIP_KEY = "big_segments_user";
+  final static String INCLUDED_ATTR = "included";
+  final static String EXCLUDED_ATTR = "excluded";
 
-  private final static String METADATA_KEY = "big_segments_metadata";
-  private final static String SYNC_TIME_ATTR = "synchronizedOn";
+  final static String METADATA_KEY = "big_segments_metadata";
+  final static String SYNC_TIME_ATTR = "synchronizedOn";
+
+  // How many BatchGetItem requests getMemberships() has in progress at once.
+  static final int MAX_CONCURRENT_MEMBERSHIP_BATCHES = 4;
+
+  // These don't change, so they're computed once rather than for every query.
+  private final String membershipNamespace;
+  private final GetItemRequest metadataRequest;
+
+  // Non-null if memberships should be cached; a cached null means the user has no membership item.
+  private final BoundedCache<String, BigSegmentStoreTypes.Membership> membershipCache;
+  // The most recent synchronizedOn time we've seen; when it increases, the cache is out of date.
+  private final AtomicLong lastSynchronizedOn = new AtomicLong(Long.MIN_VALUE);
 
   DynamoDbBigSegmentStoreImpl(
-    DynamoDbClient client,
-    boolean wasExistingClient,
-    String tableName,
-    String prefix,
+    DynamoDbClientAdapter client,
+    DynamoDbStoreBuilder<?> builder,
     LDLogger baseLogger
     ) {
-    super(client, wasExistingClient, tableName, prefix,
+    super(client, builder, ReadOperation.GET_MEMBERSHIP, MAX_CONCURRENT_MEMBERSHIP_BATCHES,
       baseLogger.subLogger("BigSegments").subLogger("DynamoDb"));
+    membershipNamespace = prefixedNamespace(MEMBERSHIP_KEY);
+    String metadataKey = prefixedNamespace(METADATA_KEY);
+    metadataRequest = makeGetItemRequest(metadataKey, metadataKey, isConsistent(ReadOperation.GET_METADATA));
+    membershipCache = builder.membershipCacheSize <= 0 ? null :
+      new BoundedCache<>(builder.membershipCacheSize, builder.membershipCacheTime);
   }
 
   @Override
   public BigSegmentStoreTypes.Membership getMembership(String userHash) {
-    String namespaceKey = prefixedNamespace(MEMBERSHIP_KEY);
-    GetItemResponse response = getItemByKeys(namespaceKey, userHash);
-    if (response == null || response.item() == null || response.item().isEmpty()) {
+    return join(getMembershipAsync(userHash));
+  }
+
+  CompletableFuture<BigSegmentStoreTypes.Membership> getMembershipAsync(String userHash) {
+    return metrics.timed(Operation.GET_MEMBERSHIP, () -> getMembershipInternal(userHash));
+  }
+
+  private CompletableFuture<BigSegmentStoreTypes.Membership> getMembershipInternal(String userHash) {
+    if (membershipCache == null) {
+      return loadMembership(userHash);
+    }
+    BoundedCache.Entry<BigSegmentStoreTypes.Membership> cached = membershipCache.get(userHash);
+    if (cached != null) {
+      return CompletableFuture.completedFuture(cached.value);
+    }
+    long generation = membershipCache.generation();
+    return loadMembership(userHash).thenApply(membership -> {
+      membershipCache.put(userHash, membership, generation);
+      return membership;
+    });
+  }
+
+  private CompletableFuture<BigSegmentStoreTypes.Membership> loadMembership(String userHash) {
+    return getItemAttributes(membershipNamespace, userHash, ReadOperation.GET_MEMBERSHIP)
+        .thenApply(DynamoDbBigSegmentStoreImpl::membershipFromItem);
+  }
+
+  @Override
+  public Map<String, BigSegmentStoreTypes.Membership> getMemberships(Collection<String> userHashes) {
+    return join(getMembershipsAsync(userHashes));
+  }
+
+  CompletableFuture<Map<String, BigSegmentStoreTypes.Membership>> getMembershipsAsync(
+      Collection<String> userHashes) {
+    Map<String, BigSegmentStoreTypes.Membership> results = new HashMap<>();
+    List<String> toLoad = new ArrayList<>();
+    for (String userHash: new LinkedHashSet<>(userHashes)) {
+      BoundedCache.Entry<BigSegmentStoreTypes.Membership> cached =
+          membershipCache == null ? null : membershipCache.get(userHash);
+      if (cached != null) {
+        results.put(userHash, cached.value);
+      } else {
+        toLoad.add(userHash);
+      }
+    }
+    if (toLoad.isEmpty()) {
+      return CompletableFuture.completedFuture(results);
+    }
+    long generation = membershipCache == null ? 0 : membershipCache.generation();
+    // ConcurrentHashMap doesn't allow null values, so users with no membership are filled in at the end.
+    Map<String, BigSegmentStoreTypes.Membership> loaded = new ConcurrentHashMap<>();
+    CongestionWindow window = new CongestionWindow(MAX_CONCURRENT_MEMBERSHIP_BATCHES);
+    List<Supplier<CompletableFuture<Void>>> tasks = new ArrayList<>();
+    for (int i = 0; i < toLoad.size(); i += ReadBatcher.MAX_BATCH_SIZE) {
+      List<String> batch = toLoad.subList(i, Math.min(toLoad.size(), i + ReadBatcher.MAX_BATCH_SIZE));
+      tasks.add(() -> loadMemberships(batch, loaded, window, 1));
+    }
+    return FanOut.run(tasks, window, executor).thenApply(v -> {
+      for (String userHash: toLoad) {
+        BigSegmentStoreTypes.Membership membership = loaded.get(userHash);
+        results.put(userHash, membership);
+        if (membershipCache != null) {
+          membershipCache.put(userHash, membership, generation);
+        }
+      }
+      return results;
+    });
+  }
+
+  private CompletableFuture<Void> loadMemberships(
+      List<String> userHashes,
+      Map<String, BigSegmentStoreTypes.Membership> loaded,
+      CongestionWindow window,
+      int attempt
+      ) {
+    List<Map<String, AttributeValue>> keys = new ArrayList<>(userHashes.size());
+    for (String userHash: userHashes) {
+      keys.add(makeKeysMap(membershipNamespace, userHash));
+    }
+    BatchGetItemRequest request = BatchGetItemRequest.builder()
+        .requestItems(mapOf(tableName, KeysAndAttributes.builder()
+            .keys(keys).consistentRead(isConsistent(ReadOperation.GET_MEMBERSHIP)).build()))
+        .returnConsumedCapacity(metrics.returnConsumedCapacity())
+        .build();
+    return client.batchGetItem(request).handle((BatchGetItemResponse resp, Throwable error) -> {
+      if (error != null) {
+        RuntimeException e = DynamoDbClientAdapter.asUnchecked(error);
+        if (Backoff.isThrottling(e) && attempt < Backoff.MAX_ATTEMPTS) {
+          return userHashes;
+        }
+        throw e;
+      }
+      metrics.capacityConsumed(Operation.GET_MEMBERSHIP, resp.consumedCapacity());
+      List<Map<String, AttributeValue>> items = resp.responses() == null ? null : resp.responses().get(tableName);
+      if (items != null) {
+        for (Map<String, AttributeValue> item: items) {
+          BigSegmentStoreTypes.Membership membership = membershipFromItem(item);
+          if (membership != null) {
+            loaded.put(item.get(SORT_KEY).s(), membership);
+          }
+        }
+      }
+      KeysAndAttributes unprocessed = resp.unprocessedKeys() == null ? null : resp.unprocessedKeys().get(tableName);
+      List<String> retry = new ArrayList<>();
+      if (unprocessed != null && unprocessed.keys() != null) {
+        for (Map<String, AttributeValue> k: unprocessed.keys()) {
+          retry.add(k.get(SORT_KEY).s());
+        }
+      }
+      return retry;
+    }).thenCompose(retry -> {
+      if (retry.isEmpty()) {
+        window.onSuccess();
+        return CompletableFuture.completedFuture(null);
+      }
+      window.onThrottle();
+      metrics.requestThrottled(Operation.GET_MEMBERSHIP);
+      if (attempt >= Backoff.MAX_ATTEMPTS) {
+        throw new RuntimeException(String.format(
+            "DynamoDB did not return %d Big Segment memberships in table %s after %d attempts",
+            retry.size(), tableName, attempt));
+      }
+      return client.delay(Backoff.delayMillis(attempt))
+          .thenCompose(v -> loadMemberships(retry, loaded, window, attempt + 1));
+    });
+  }
+
+  static BigSegmentStoreTypes.Membership membershipFromItem(Map<String, AttributeValue> item) {
+    if (item == null || item.isEmpty()) {
       return null;
     }
-    List<String> includedRefs = stringListFromAttrValue(response.item().get(INCLUDED_ATTR));
-    List<String> excludedRefs = stringListFromAttrValue(response.item().get(EXCLUDED_ATTR));
-    return createMembershipFromSegmentRefs(includedRefs, excludedRefs);
+    List<String> includedRefs = stringListFromAttrValue(item.get(INCLUDED_ATTR));
+    List<String> excludedRefs = stringListFromAttrValue(item.get(EXCLUDED_ATTR));
+    return CompactMembership.fromSegmentRefs(includedRefs, excludedRefs);
   }
 
   private static List<String> stringListFromAttrValue(AttributeValue attrValue) {
@@ -49,8 +212,28 @@ final class DynamoDbBigSegmentStoreImpl extends DynamoDbStoreImplBase implements
 
   @Override
   public BigSegmentStoreTypes.StoreMetadata getMetadata() {
-    String key = prefixedNamespace(METADATA_KEY);
-    GetItemResponse response = getItemByKeys(key, key);
+    return join(getMetadataAsync());
+  }
+
+  CompletableFuture<BigSegmentStoreTypes.StoreMetadata> getMetadataAsync() {
+    return metrics.timed(Operation.GET_METADATA, this::getMetadataInternal);
+  }
+
+  private CompletableFuture<BigSegmentStoreTypes.StoreMetadata> getMetadataInternal() {
+    return getItem(metadataRequest, Operation.GET_METADATA)
+        .thenApply(DynamoDbBigSegmentStoreImpl::metadataFromResponse)
+        .thenApply(metadata -> {
+          if (metadata != null && membershipCache != null) {
+            long syncTime = metadata.getLastUpToDate();
+            if (lastSynchronizedOn.getAndAccumulate(syncTime, Math::max) < syncTime) {
+              membershipCache.clear();
+            }
+          }
+          return metadata;
+        });
+  }
+
+  private static BigSegmentStoreTypes.StoreMetadata metadataFromResponse(GetItemResponse response) {
     if (response == null || response.item() == null) {
       return null;
     }
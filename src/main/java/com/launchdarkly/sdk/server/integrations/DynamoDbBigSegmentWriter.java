@@ -0,0 +1,309 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import static com.launchdarkly.sdk.server.integrations.CollectionHelpers.mapOf;
+import static com.launchdarkly.sdk.server.integrations.DynamoDbBigSegmentStoreImpl.EXCLUDED_ATTR;
+import static com.launchdarkly.sdk.server.integrations.DynamoDbBigSegmentStoreImpl.INCLUDED_ATTR;
+import static com.launchdarkly.sdk.server.integrations.DynamoDbBigSegmentStoreImpl.MEMBERSHIP_KEY;
+import static com.launchdarkly.sdk.server.integrations.DynamoDbBigSegmentStoreImpl.METADATA_KEY;
+import static com.launchdarkly.sdk.server.integrations.DynamoDbBigSegmentStoreImpl.SYNC_TIME_ATTR;
+import static com.launchdarkly.sdk.server.integrations.DynamoDbClientAdapter.join;
+import static com.launchdarkly.sdk.server.integrations.DynamoDbStoreImplBase.PARTITION_KEY;
+import static com.launchdarkly.sdk.server.integrations.DynamoDbStoreImplBase.SORT_KEY;
+
+import com.launchdarkly.logging.LDLogger;
+import com.launchdarkly.sdk.server.integrations.DynamoDbStoreMetrics.Operation;
+import com.launchdarkly.sdk.server.subsystems.BigSegmentStore;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+/**
+ * Writes Big Segment membership data to DynamoDB, in the format that the Big Segment store created by
+ * {@link DynamoDb#bigSegmentStore(String)} reads.
+ * <p>
+ * The SDK never writes this data itself; normally it is written by the LaunchDarkly Relay Proxy. This
+ * class is for anything else that needs to populate the table, such as a self-hosted synchronizer or a
+ * test environment. Changes are collected in a {@link Changes} object and written with
+ * {@link #apply(Changes, long)}:
+ *
+ * <pre><code>
+ *     try (DynamoDbBigSegmentWriter writer = new DynamoDbBigSegmentWriter(
+ *         DynamoDb.bigSegmentStore("my-table").prefix("my-key"))) {
+ *       writer.apply(new DynamoDbBigSegmentWriter.Changes()
+ *           .include("segment1.g1", addedUserHashes)
+ *           .removeIncluded("segment1.g1", removedUserHashes),
+ *           System.currentTimeMillis());
+ *     }
+ * </code></pre>
+ *
+ * Each user's changes are one or two {@code UpdateItem} requests that add values to or delete values
+ * from the user's {@code included} and {@code excluded} string sets, so they do not depend on reading
+ * the user's current membership first. Many users are updated in parallel; the number of requests in
+ * progress is halved whenever DynamoDB reports that the table is out of write capacity, and grows
+ * again as requests succeed. The store's "synchronized on" time is updated only after every membership
+ * change has been written, so an SDK never sees the new time with partly written data.
+ * <p>
+ * The DynamoDB client, table name, prefix, metrics, and threading options are taken from the store
+ * builder. Up to {@link #DEFAULT_MAX_CONCURRENT_UPDATES} updates are in progress at once, or more if
+ * {@link DynamoDbStoreBuilder#maxInFlightBatchWrites(int)} is set higher. With the synchronous DynamoDB
+ * client and no {@link DynamoDbStoreBuilder#executor(Executor)}, each of them uses a thread that the
+ * writer starts when it is needed and stops after it has been idle for a while.
+ */
+public final class DynamoDbBigSegmentWriter implements Closeable {
+  /**
+   * The maximum number of {@code UpdateItem} requests that are in progress at once, unless
+   * {@link DynamoDbStoreBuilder#maxInFlightBatchWrites(int)} is set higher.
+   */
+  public static final int DEFAULT_MAX_CONCURRENT_UPDATES = 32;
+
+  private final DynamoDbClientAdapter client;
+  private final String tableName;
+  private final String prefix;
+  private final StoreMetrics metrics;
+  private final Executor executor;
+  private final ExecutorService ownedExecutor;
+  private final CongestionWindow window;
+  private final LDLogger logger;
+  private final AttributeValue membershipNamespace;
+
+  /**
+   * Creates a writer that uses the DynamoDB configuration of a Big Segment store builder.
+   *
+   * @param builder the store builder, as returned by {@link DynamoDb#bigSegmentStore(String)}
+   */
+  public DynamoDbBigSegmentWriter(DynamoDbStoreBuilder<BigSegmentStore> builder) {
+    this(builder, LDLogger.none());
+  }
+
+  /**
+   * Creates a writer that uses the DynamoDB configuration of a Big Segment store builder, and logs
+   * retries and errors to the specified logger.
+   *
+   * @param builder the store builder, as returned by {@link DynamoDb#bigSegmentStore(String)}
+   * @param logger the logger
+   */
+  public DynamoDbBigSegmentWriter(DynamoDbStoreBuilder<BigSegmentStore> builder, LDLogger logger) {
+    this(builder.makeClient(), builder, logger);
+  }
+
+  DynamoDbBigSegmentWriter(DynamoDbClientAdapter client, DynamoDbStoreBuilder<?> builder, LDLogger logger) {
+    this.client = client;
+    this.tableName = builder.tableName;
+    this.prefix = builder.prefix == null || builder.prefix.isEmpty() ? null : builder.prefix;
+    this.metrics = StoreMetrics.of(builder.metrics, logger);
+    this.logger = logger;
+    int maxConcurrent = Math.max(DEFAULT_MAX_CONCURRENT_UPDATES, builder.maxInFlightBatchWrites);
+    // Updates are only written now and then, so the threads don't need to be kept in between.
+    this.ownedExecutor = DynamoDbStoreImplBase.makeOwnedExecutor(client, builder, maxConcurrent, true, logger);
+    this.executor = DynamoDbStoreImplBase.selectExecutor(client, builder, ownedExecutor);
+    this.window = new CongestionWindow(maxConcurrent);
+    this.membershipNamespace = AttributeValue.builder().s(prefixedNamespace(MEMBERSHIP_KEY)).build();
+  }
+
+  /**
+   * Writes a set of membership changes, and then sets the time that the Big Segment data was last
+   * synchronized. If any change cannot be written, this throws an exception and the synchronization
+   * time is not updated; since the changes are idempotent, the caller can simply apply them again.
+   *
+   * @param changes the membership changes
+   * @param synchronizedOn the synchronization time, in milliseconds since the epoch
+   */
+  public void apply(Changes changes, long synchronizedOn) {
+    join(applyAsync(changes, synchronizedOn));
+  }
+
+  /**
+   * Releases the DynamoDB client, if the writer created it, and any threads that the writer started.
+   */
+  @Override
+  public void close() throws IOException {
+    if (ownedExecutor != null) {
+      ownedExecutor.shutdown();
+    }
+    client.close();
+  }
+
+  CompletableFuture<Void> applyAsync(Changes changes, long synchronizedOn) {
+    List<Supplier<CompletableFuture<Void>>> tasks = new ArrayList<>();
+    for (Map.Entry<String, UserChanges> e: changes.users.entrySet()) {
+      String userHash = e.getKey();
+      UserChanges c = e.getValue();
+      tasks.add(() -> {
+        // A single update expression can't both add to and delete from the same attribute. The two
+        // updates can be done in either order, since a segment is never in both the added and removed
+        // sets for the same attribute.
+        UpdateItemRequest adds = makeSetUpdate("ADD", userHash, c.includedAdded, c.excludedAdded);
+        UpdateItemRequest deletes = makeSetUpdate("DELETE", userHash, c.includedRemoved, c.excludedRemoved);
+        CompletableFuture<Void> result = adds == null ? CompletableFuture.completedFuture(null) : update(adds, 1);
+        return deletes == null ? result : result.thenCompose(v -> update(deletes, 1));
+      });
+    }
+    AttributeValue metadataKey = AttributeValue.builder().s(prefixedNamespace(METADATA_KEY)).build();
+    UpdateItemRequest setSyncTime = UpdateItemRequest.builder()
+        .tableName(tableName)
+        .key(mapOf(PARTITION_KEY, metadataKey, SORT_KEY, metadataKey))
+        .updateExpression("SET #syncTime = :syncTime")
+        .expressionAttributeNames(mapOf("#syncTime", SYNC_TIME_ATTR))
+        .expressionAttributeValues(mapOf(":syncTime", AttributeValue.builder().n(String.valueOf(synchronizedOn)).build()))
+        .returnConsumedCapacity(metrics.returnConsumedCapacity())
+        .build();
+    return metrics.timed(Operation.UPDATE_MEMBERSHIPS, () ->
+        FanOut.run(tasks, window, executor).thenCompose(results -> update(setSyncTime, 1)));
+  }
+
+  private String prefixedNamespace(String base) {
+    return prefix == null ? base : (prefix + ":" + base);
+  }
+
+  private UpdateItemRequest makeSetUpdate(String action, String userHash, Set<String> included, Set<String> excluded) {
+    List<String> clauses = new ArrayList<>();
+    Map<String, String> names = new LinkedHashMap<>();
+    Map<String, AttributeValue> values = new LinkedHashMap<>();
+    if (!included.isEmpty()) {
+      clauses.add("#included :included");
+      names.put("#included", INCLUDED_ATTR);
+      values.put(":included", AttributeValue.builder().ss(included).build());
+    }
+    if (!excluded.isEmpty()) {
+      clauses.add("#excluded :excluded");
+      names.put("#excluded", EXCLUDED_ATTR);
+      values.put(":excluded", AttributeValue.builder().ss(excluded).build());
+    }
+    if (clauses.isEmpty()) {
+      return null;
+    }
+    return UpdateItemRequest.builder()
+        .tableName(tableName)
+        .key(mapOf(PARTITION_KEY, membershipNamespace, SORT_KEY, AttributeValue.builder().s(userHash).build()))
+        .updateExpression(action + " " + String.join(", ", clauses))
+        .expressionAttributeNames(names)
+        .expressionAttributeValues(values)
+        .returnConsumedCapacity(metrics.returnConsumedCapacity())
+        .build();
+  }
+
+  private CompletableFuture<Void> update(UpdateItemRequest request, int attempt) {
+    return client.updateItem(request).handle((UpdateItemResponse resp, Throwable error) -> {
+      if (error == null) {
+        metrics.capacityConsumed(Operation.UPDATE_MEMBERSHIPS, resp.consumedCapacity());
+        window.onSuccess();
+        return true;
+      }
+      RuntimeException e = DynamoDbClientAdapter.asUnchecked(error);
+      if (Backoff.isThrottling(e) && attempt < Backoff.MAX_ATTEMPTS) {
+        return false;
+      }
+      throw e;
+    }).thenCompose(written -> {
+      if (written) {
+        return CompletableFuture.completedFuture(null);
+      }
+      window.onThrottle();
+      metrics.requestThrottled(Operation.UPDATE_MEMBERSHIPS);
+      long delay = Backoff.delayMillis(attempt);
+      logger.debug("DynamoDB throttled a Big Segment membership update; retrying in {}ms", delay);
+      return client.delay(delay).thenCompose(v -> update(request, attempt + 1));
+    });
+  }
+
+  /**
+   * A set of Big Segment membership changes to be written by {@link DynamoDbBigSegmentWriter#apply(Changes, long)}.
+   * <p>
+   * Segments are identified by the same segment reference strings that the SDK uses, which combine the
+   * segment key and generation ({@code "key.g1"}). If the same user and segment are both added and
+   * removed, whichever change was made last wins. This class is not thread-safe.
+   */
+  public static final class Changes {
+    final Map<String, UserChanges> users = new LinkedHashMap<>();
+
+    /**
+     * Adds users to a segment's list of included users.
+     *
+     * @param segmentRef the segment reference
+     * @param userHashes the hashed user keys
+     * @return the same object
+     */
+    public Changes include(String segmentRef, Collection<String> userHashes) {
+      for (String userHash: userHashes) {
+        UserChanges c = forUser(userHash);
+        c.includedRemoved.remove(segmentRef);
+        c.includedAdded.add(segmentRef);
+      }
+      return this;
+    }
+
+    /**
+     * Removes users from a segment's list of included users.
+     *
+     * @param segmentRef the segment reference
+     * @param userHashes the hashed user keys
+     * @return the same object
+     */
+    public Changes removeIncluded(String segmentRef, Collection<String> userHashes) {
+      for (String userHash: userHashes) {
+        UserChanges c = forUser(userHash);
+        c.includedAdded.remove(segmentRef);
+        c.includedRemoved.add(segmentRef);
+      }
+      return this;
+    }
+
+    /**
+     * Adds users to a segment's list of excluded users.
+     *
+     * @param segmentRef the segment reference
+     * @param userHashes the hashed user keys
+     * @return the same object
+     */
+    public Changes exclude(String segmentRef, Collection<String> userHashes) {
+      for (String userHash: userHashes) {
+        UserChanges c = forUser(userHash);
+        c.excludedRemoved.remove(segmentRef);
+        c.excludedAdded.add(segmentRef);
+      }
+      return this;
+    }
+
+    /**
+     * Removes users from a segment's list of excluded users.
+     *
+     * @param segmentRef the segment reference
+     * @param userHashes the hashed user keys
+     * @return the same object
+     */
+    public Changes removeExcluded(String segmentRef, Collection<String> userHashes) {
+      for (String userHash: userHashes) {
+        UserChanges c = forUser(userHash);
+        c.excludedAdded.remove(segmentRef);
+        c.excludedRemoved.add(segmentRef);
+      }
+      return this;
+    }
+
+    private UserChanges forUser(String userHash) {
+      return users.computeIfAbsent(userHash, k -> new UserChanges());
+    }
+  }
+
+  static final class UserChanges {
+    final Set<String> includedAdded = new LinkedHashSet<>();
+    final Set<String> includedRemoved = new LinkedHashSet<>();
+    final Set<String> excludedAdded = new LinkedHashSet<>();
+    final Set<String> excludedRemoved = new LinkedHashSet<>();
+  }
+}
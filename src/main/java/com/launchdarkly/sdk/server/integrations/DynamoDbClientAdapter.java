@@ -0,0 +1,273 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+/**
+ * A common {@link CompletableFuture}-based view of either a {@link DynamoDbClient} or a
+ * {@link DynamoDbAsyncClient}, so the store implementations only need one code path.
+ * <p>
+ * With the synchronous client, each call runs on the calling thread and returns an already-completed
+ * future; any concurrency comes from whatever executor the caller used to start the call. With the
+ * asynchronous client, calls return immediately and complete on the AWS SDK's own response threads,
+ * so fanning out many requests does not tie up a thread per request.
+ */
+abstract class DynamoDbClientAdapter implements Closeable {
+  private static volatile ScheduledExecutorService delayScheduler;
+
+  private final boolean ownsClient;
+
+  private DynamoDbClientAdapter(boolean ownsClient) {
+    this.ownsClient = ownsClient;
+  }
+
+  static DynamoDbClientAdapter of(DynamoDbClient client, boolean ownsClient) {
+    return new Sync(client, ownsClient);
+  }
+
+  static DynamoDbClientAdapter of(DynamoDbAsyncClient client, boolean ownsClient) {
+    return new Async(client, ownsClient);
+  }
+
+  abstract boolean isAsync();
+
+  abstract CompletableFuture<GetItemResponse> getItem(GetItemRequest request);
+
+  abstract CompletableFuture<PutItemResponse> putItem(PutItemRequest request);
+
+  abstract CompletableFuture<UpdateItemResponse> updateItem(UpdateItemRequest request);
+
+  abstract CompletableFuture<QueryResponse> query(QueryRequest request);
+
+  abstract CompletableFuture<ScanResponse> scan(ScanRequest request);
+
+  abstract CompletableFuture<BatchWriteItemResponse> batchWriteItem(BatchWriteItemRequest request);
+
+  abstract CompletableFuture<BatchGetItemResponse> batchGetItem(BatchGetItemRequest request);
+
+  /**
+   * Returns a future that completes after the specified delay. With the synchronous client this simply
+   * sleeps on the current thread, which is already dedicated to the operation being retried; with the
+   * asynchronous client it uses a shared timer thread so that no request thread is blocked.
+   */
+  abstract CompletableFuture<Void> delay(long millis);
+
+  @Override
+  public void close() {
+    if (ownsClient) {
+      closeClient();
+    }
+  }
+
+  abstract void closeClient();
+
+  /**
+   * Waits for a future and returns its result, rethrowing any failure as the original unchecked
+   * exception rather than a {@link CompletionException} wrapper. This is how the blocking methods of
+   * the SDK's store interfaces are implemented on top of the asynchronous ones.
+   */
+  static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while waiting for DynamoDB", e);
+    } catch (ExecutionException e) {
+      throw asUnchecked(e.getCause());
+    }
+  }
+
+  static RuntimeException asUnchecked(Throwable t) {
+    while ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null) {
+      t = t.getCause();
+    }
+    if (t instanceof RuntimeException) {
+      return (RuntimeException)t;
+    }
+    if (t instanceof Error) {
+      throw (Error)t;
+    }
+    return new RuntimeException(t);
+  }
+
+  static <T> CompletableFuture<T> failedFuture(Throwable t) {
+    CompletableFuture<T> f = new CompletableFuture<>();
+    f.completeExceptionally(t);
+    return f;
+  }
+
+  private static ScheduledExecutorService delayScheduler() {
+    ScheduledExecutorService s = delayScheduler;
+    if (s == null) {
+      synchronized (DynamoDbClientAdapter.class) {
+        s = delayScheduler;
+        if (s == null) {
+          s = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "LaunchDarkly-DynamoDb-Retry");
+            t.setDaemon(true);
+            return t;
+          });
+          delayScheduler = s;
+        }
+      }
+    }
+    return s;
+  }
+
+  private static final class Sync extends DynamoDbClientAdapter {
+    private final DynamoDbClient client;
+
+    Sync(DynamoDbClient client, boolean ownsClient) {
+      super(ownsClient);
+      this.client = client;
+    }
+
+    @Override
+    boolean isAsync() {
+      return false;
+    }
+
+    @Override
+    CompletableFuture<GetItemResponse> getItem(GetItemRequest request) {
+      return call(() -> client.getItem(request));
+    }
+
+    @Override
+    CompletableFuture<PutItemResponse> putItem(PutItemRequest request) {
+      return call(() -> client.putItem(request));
+    }
+
+    @Override
+    CompletableFuture<UpdateItemResponse> updateItem(UpdateItemRequest request) {
+      return call(() -> client.updateItem(request));
+    }
+
+    @Override
+    CompletableFuture<QueryResponse> query(QueryRequest request) {
+      return call(() -> client.query(request));
+    }
+
+    @Override
+    CompletableFuture<ScanResponse> scan(ScanRequest request) {
+      return call(() -> client.scan(request));
+    }
+
+    @Override
+    CompletableFuture<BatchWriteItemResponse> batchWriteItem(BatchWriteItemRequest request) {
+      return call(() -> client.batchWriteItem(request));
+    }
+
+    @Override
+    CompletableFuture<BatchGetItemResponse> batchGetItem(BatchGetItemRequest request) {
+      return call(() -> client.batchGetItem(request));
+    }
+
+    @Override
+    CompletableFuture<Void> delay(long millis) {
+      try {
+        Thread.sleep(millis);
+        return CompletableFuture.completedFuture(null);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return failedFuture(e);
+      }
+    }
+
+    @Override
+    void closeClient() {
+      client.close();
+    }
+
+    private static <T> CompletableFuture<T> call(Supplier<T> action) {
+      try {
+        return CompletableFuture.completedFuture(action.get());
+      } catch (RuntimeException e) {
+        return failedFuture(e);
+      }
+    }
+  }
+
+  private static final class Async extends DynamoDbClientAdapter {
+    private final DynamoDbAsyncClient client;
+
+    Async(DynamoDbAsyncClient client, boolean ownsClient) {
+      super(ownsClient);
+      this.client = client;
+    }
+
+    @Override
+    boolean isAsync() {
+      return true;
+    }
+
+    @Override
+    CompletableFuture<GetItemResponse> getItem(GetItemRequest request) {
+      return client.getItem(request);
+    }
+
+    @Override
+    CompletableFuture<PutItemResponse> putItem(PutItemRequest request) {
+      return client.putItem(request);
+    }
+
+    @Override
+    CompletableFuture<UpdateItemResponse> updateItem(UpdateItemRequest request) {
+      return client.updateItem(request);
+    }
+
+    @Override
+    CompletableFuture<QueryResponse> query(QueryRequest request) {
+      return client.query(request);
+    }
+
+    @Override
+    CompletableFuture<ScanResponse> scan(ScanRequest request) {
+      return client.scan(request);
+    }
+
+    @Override
+    CompletableFuture<BatchWriteItemResponse> batchWriteItem(BatchWriteItemRequest request) {
+      return client.batchWriteItem(request);
+    }
+
+    @Override
+    CompletableFuture<BatchGetItemResponse> batchGetItem(BatchGetItemRequest request) {
+      return client.batchGetItem(request);
+    }
+
+    @Override
+    CompletableFuture<Void> delay(long millis) {
+      CompletableFuture<Void> f = new CompletableFuture<>();
+      delayScheduler().schedule(() -> f.complete(null), millis, TimeUnit.MILLISECONDS);
+      return f;
+    }
+
+    @Override
+    void closeClient() {
+      client.close();
+    }
+  }
+}
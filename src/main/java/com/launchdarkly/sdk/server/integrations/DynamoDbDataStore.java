@@ -0,0 +1,41 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import com.launchdarkly.sdk.server.subsystems.DataStoreTypes.DataKind;
+import com.launchdarkly.sdk.server.subsystems.PersistentDataStore;
+
+import java.util.Map;
+
+/**
+ * The DynamoDB data store, with additional methods for reading the versions of stored items without
+ * reading their data.
+ * <p>
+ * The store created by {@link DynamoDb#dataStore(String)} implements this interface. An application
+ * that only needs to know which flags or segments have changed, such as one that compares the store's
+ * contents with another source, can build the store itself and use these methods; they request only
+ * the "version" attribute, so they use less read capacity for large items:
+ * <pre><code>
+ *     try (DynamoDbDataStore store = (DynamoDbDataStore)DynamoDb.dataStore("table1")
+ *         .build(new ClientContext(sdkKey))) {
+ *       Map&lt;String, Integer&gt; flagVersions = store.getVersions(DataModel.FEATURES);
+ *     }
+ * </code></pre>
+ */
+public interface DynamoDbDataStore extends PersistentDataStore {
+  /**
+   * Returns the stored version of an item, without reading the item's data. A deleted item still has
+   * a version.
+   *
+   * @param kind the kind of data
+   * @param key the item's key
+   * @return the version, or null if there is no such item
+   */
+  Integer getVersion(DataKind kind, String key);
+
+  /**
+   * Returns the stored versions of all items of a kind, without reading their data.
+   *
+   * @param kind the kind of data
+   * @return a map of item keys to versions
+   */
+  Map<String, Integer> getVersions(DataKind kind);
+}
@@ -1,31 +1,52 @@
 package com.launchdarkly.sdk.server.integrations;
 
 import com.launchdarkly.logging.LDLogger;
+import com.launchdarkly.sdk.server.integrations.DynamoDbStoreBuilder.ReadOperation;
+import com.launchdarkly.sdk.server.integrations.DynamoDbStoreMetrics.Operation;
 import com.launchdarkly.sdk.server.subsystems.DataStoreTypes.DataKind;
 import com.launchdarkly.sdk.server.subsystems.DataStoreTypes.FullDataSet;
 import com.launchdarkly.sdk.server.subsystems.DataStoreTypes.KeyedItems;
 import com.launchdarkly.sdk.server.subsystems.DataStoreTypes.SerializedItemDescriptor;
-import com.launchdarkly.sdk.server.subsystems.PersistentDataStore;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 import static com.launchdarkly.sdk.server.integrations.CollectionHelpers.mapOf;
+import static com.launchdarkly.sdk.server.integrations.DynamoDbClientAdapter.join;
 
+import software.amazon.awssdk.core.SdkBytes;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 import software.amazon.awssdk.services.dynamodb.model.ComparisonOperator;
 import software.amazon.awssdk.services.dynamodb.model.Condition;
 import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
-import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
 import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
 import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
 import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
-import software.amazon.awssdk.services.dynamodb.paginators.QueryIterable;
 
 /**
  * Internal implementation of the DynamoDB data store.
@@ -52,11 +73,17 @@ import software.amazon.awssdk.services.dynamodb.paginators.QueryIterable;
  * happened to execute later than the upsert(); we are relying on the fact that normally the
  * process that did the init() will also receive the new data shortly and do its own upsert().
  *
- * <li> DynamoDB has a maximum item size of 400KB. Since each feature flag or user segment is
- * stored as a single item, this mechanism will not work for extremely large flags or segments.
+ * <li> DynamoDB has a maximum item size of 400KB. By default each feature flag or user segment is
+ * stored as a single item, so extremely large flags or segments are logged and dropped, unless
+ * chunkLargeItems() is enabled (see ItemChunks).
  * </ul>
+ * <p>
+ * The optional behaviors configured in DynamoDbStoreBuilder are described there and in the helper
+ * classes that implement them: BatchWriter, InFlightRequests, ReadBatcher, ItemCompression, PagedItems,
+ * UpsertBuffer, and StoreMetrics. All DynamoDB requests go through DynamoDbClientAdapter, so the same
+ * code serves both the synchronous and the asynchronous AWS client.
  */
-final class DynamoDbDataStoreImpl extends DynamoDbStoreImplBase implements PersistentDataStore {
+final class DynamoDbDataStoreImpl extends DynamoDbStoreImplBase implements DynamoDbDataStore {
   private static final String versionAttribute = "version";
   private static final String itemJsonAttribute = "item";
   private static final String deletedItemPlaceholder = "null"; // DynamoDB doesn't allow empty strings
@@ -66,202 +93,1018 @@ final class DynamoDbDataStoreImpl extends DynamoDbStoreImplBase implements Persi
   // too-large item we are rounding it down.
   private static final int DYNAMO_DB_MAX_ITEM_SIZE = 400000;
 
+  // How long the results of a bulk load are kept for the getAll() calls that follow the one that did it.
+  private static final long BULK_LOAD_RESULT_MAX_AGE_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+  // Added to the namespace of an item to get the namespace of its replicas, followed by the replica number.
+  static final String REPLICA_NAMESPACE_SUFFIX = "$replica";
+
+  // Every upsert uses the same condition and attribute names, so they're only created once.
+  private static final String UPSERT_CONDITION =
+      "attribute_not_exists(#namespace) or attribute_not_exists(#key) or :version > #version";
+  private static final Map<String, String> UPSERT_ATTRIBUTE_NAMES = Collections.unmodifiableMap(mapOf(
+      "#namespace", PARTITION_KEY, "#key", SORT_KEY, "#version", versionAttribute));
+  private static final Map<String, String> VERSION_ATTRIBUTE_NAMES =
+      Collections.unmodifiableMap(mapOf("#version", versionAttribute));
+  private static final Map<String, String> KEY_AND_VERSION_ATTRIBUTE_NAMES = Collections.unmodifiableMap(mapOf(
+      "#key", SORT_KEY, "#version", versionAttribute));
+
+  // How many times we'll re-read a chunked item whose chunks are being replaced while we read them.
+  private static final int MAX_CHUNKED_READ_ATTEMPTS = 3;
+
+  private final int compressionThreshold;
+  private final boolean chunkLargeItems;
+  private final boolean skipUnchangedItemsOnInit;
+  private final boolean parallelQueries;
+  private final boolean streamingGetAll;
+  private final int bulkLoadScanSegments;
+  private final int hotItemReplicas; // 0 if there are no replicas
+  private final Set<String> hotItemKeys;
+  // Hot items, as (namespace, key), whose replicas could not be updated after the item was; reads of
+  // these skip the replicas until a later write updates them.
+  private final Set<Map.Entry<String, String>> staleReplicas = ConcurrentHashMap.newKeySet();
+  private final AtomicBoolean bulkLoadStarted = new AtomicBoolean();
+  // Results of the bulk load for the kinds that have not been asked for yet, by namespace.
+  private final Map<String, KeyedItems<SerializedItemDescriptor>> bulkLoadResults = new ConcurrentHashMap<>();
+  private volatile long bulkLoadedAt;
+  // Incremented by every write, so that a bulk load that was in progress at the time doesn't keep its
+  // results; see keepBulkLoadResults().
+  private final AtomicLong bulkLoadGeneration = new AtomicLong();
+  private final UpsertBuffer upsertBuffer; // non-null if write-behind is enabled
+  private final BatchWriter batchWriter;
+  private final InFlightRequests<Map.Entry<String, String>, SerializedItemDescriptor> inFlightReads;
+  private final long initializedCacheNanos; // 0 if isInitialized() results are not cached
+  private final LongSupplier nanoTime;
+  private final String initedKey;
+  // Reads of the "$inited" marker: the original, then each replica if there are any.
+  private final GetItemRequest[] initedRequests;
+  // Namespaces and related values for each kind of data, by kind name; see kindInfo().
+  private final Map<String, KindInfo> kinds = new ConcurrentHashMap<>();
+  private volatile long initializedExpiresAt;
+  private volatile boolean initializedCached;
   private Runnable updateHook;
   
   DynamoDbDataStoreImpl(
-    DynamoDbClient client,
-    boolean wasExistingClient,
-    String tableName,
-    String prefix,
+    DynamoDbClientAdapter client,
+    DynamoDbStoreBuilder<?> builder,
     LDLogger baseLogger
     ) {
-    super(client, wasExistingClient, tableName, prefix,
+    this(client, builder, baseLogger, System::nanoTime);
+  }
+
+  // Used by tests to control the clock for the cached isInitialized() result and bulk-loaded data.
+  DynamoDbDataStoreImpl(
+    DynamoDbClientAdapter client,
+    DynamoDbStoreBuilder<?> builder,
+    LDLogger baseLogger,
+    LongSupplier nanoTime
+    ) {
+    super(client, builder, ReadOperation.GET, 1,
       baseLogger.subLogger("DataStore").subLogger("DynamoDb"));
+    batchWriter = new BatchWriter(client, tableName, executor, builder.maxInFlightBatchWrites, metrics,
+        logger);
+    inFlightReads = builder.coalesceReads ? new InFlightRequests<>() : null;
+    compressionThreshold = builder.itemCompressionThreshold;
+    chunkLargeItems = builder.chunkLargeItems;
+    skipUnchangedItemsOnInit = builder.skipUnchangedItemsOnInit;
+    parallelQueries = builder.parallelQueries;
+    streamingGetAll = builder.streamingGetAll;
+    bulkLoadScanSegments = builder.bulkLoadScanSegments;
+    hotItemReplicas = builder.hotItemKeys.isEmpty() ? 0 : builder.hotItemReplicas;
+    hotItemKeys = builder.hotItemKeys;
+    initializedCacheNanos = builder.initializedCacheTime == null ? 0 : builder.initializedCacheTime.toNanos();
+    this.nanoTime = nanoTime;
+    initedKey = prefixedNamespace("$inited");
+    initedRequests = new GetItemRequest[hotItemReplicas + 1];
+    for (int i = 0; i <= hotItemReplicas; i++) {
+      initedRequests[i] = makeGetItemRequest(i == 0 ? initedKey : replicaNamespace(initedKey, i), initedKey,
+          isConsistent(ReadOperation.IS_INITIALIZED));
+    }
+    // Created last, since its timer may call writeUpsert() at any time
+    upsertBuffer = builder.writeBehindWindow == null ? null :
+      new UpsertBuffer(this::writeUpsert, builder.writeBehindWindow.toMillis(), executor, logger);
   }
 
   @Override
   public SerializedItemDescriptor get(DataKind kind, String key) {
-    GetItemResponse resp = getItemByKeys(namespaceForKind(kind), key);
-    return unmarshalItem(kind, resp.item());
+    return join(getAsync(kind, key));
   }
 
   @Override
   public KeyedItems<SerializedItemDescriptor> getAll(DataKind kind) {
+    return join(getAllAsync(kind));
+  }
+
+  @Override
+  public void init(FullDataSet<SerializedItemDescriptor> allData) {
+    join(initAsync(allData));
+  }
+
+  @Override
+  public boolean upsert(DataKind kind, String key, SerializedItemDescriptor newItem) {
+    return join(upsertAsync(kind, key, newItem));
+  }
+
+  @Override
+  public boolean isInitialized() {
+    return join(isInitializedAsync());
+  }
+
+  //@Override
+  public boolean isStoreAvailable() {
+    try {
+      // don't care about the return value, just that it doesn't throw an exception
+      join(metrics.timed(Operation.IS_INITIALIZED, this::readInitialized));
+      return true;
+    } catch (Exception e) { // don't care about exception class, since any exception means the DynamoDB request couldn't be made
+      return false;
+    }
+  }
+  
+  public void setUpdateHook(Runnable updateHook) {
+    this.updateHook = updateHook;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (upsertBuffer != null) {
+      upsertBuffer.close(); // writes whatever is still pending
+    }
+    super.close();
+  }
+
+  CompletableFuture<SerializedItemDescriptor> getAsync(DataKind kind, String key) {
+    CompletableFuture<SerializedItemDescriptor> result =
+        metrics.timed(Operation.GET, () -> forgetInitializedOnError(getInternal(kind, key)));
+    if (upsertBuffer == null) {
+      return result;
+    }
+    // An upsert that hasn't been written yet is newer than what we read, unless another process has
+    // written an even newer version.
+    return result.thenApply(stored -> {
+      UpsertBuffer.Pending p = upsertBuffer.get(namespaceForKind(kind), key);
+      return p != null && (stored == null || p.item.getVersion() > stored.getVersion()) ? p.item : stored;
+    });
+  }
+
+  private CompletableFuture<SerializedItemDescriptor> getInternal(DataKind kind, String key) {
+    String namespace = namespaceForKind(kind);
+    if (inFlightReads == null) {
+      return readItem(namespace, key)
+          .thenCompose(item -> decodeItem(namespace, key, item, Operation.GET, 1));
+    }
+    return inFlightReads.get(new AbstractMap.SimpleEntry<>(namespace, key),
+        () -> readItem(namespace, key)
+          .thenCompose(item -> decodeItem(namespace, key, item, Operation.GET, 1)));
+  }
+
+  // Reads a flag or segment, from a random replica if it is a hot item.
+  private CompletableFuture<Map<String, AttributeValue>> readItem(String namespace, String key) {
+    if (!isHotItem(key) ||
+        (!staleReplicas.isEmpty() && staleReplicas.contains(new AbstractMap.SimpleEntry<>(namespace, key)))) {
+      return getItemAttributes(namespace, key, ReadOperation.GET);
+    }
+    return getItemAttributes(randomReplicaNamespace(namespace), key, ReadOperation.GET)
+        .thenCompose(item -> item != null && !item.isEmpty() ? CompletableFuture.completedFuture(item) :
+          getItemAttributes(namespace, key, ReadOperation.GET));
+  }
+
+  CompletableFuture<KeyedItems<SerializedItemDescriptor>> getAllAsync(DataKind kind) {
+    return metrics.timed(Operation.GET_ALL, () -> forgetInitializedOnError(getAllInternal(kind)));
+  }
+
+  private CompletableFuture<KeyedItems<SerializedItemDescriptor>> getAllInternal(DataKind kind) {
+    if (bulkLoadScanSegments > 0) {
+      KeyedItems<SerializedItemDescriptor> loaded = takeBulkLoadResult(kind);
+      if (loaded != null) {
+        return CompletableFuture.completedFuture(loaded);
+      }
+      if (bulkLoadStarted.compareAndSet(false, true)) {
+        long generation = bulkLoadGeneration.get();
+        return scanAllAsync().thenApply(results -> {
+          KeyedItems<SerializedItemDescriptor> mine = results.remove(namespaceForKind(kind));
+          keepBulkLoadResults(results, generation);
+          return mine != null ? mine :
+            new KeyedItems<>(Collections.<Map.Entry<String, SerializedItemDescriptor>>emptyList());
+        });
+      }
+    }
+    if (streamingGetAll) {
+      return getAllStreaming(kind);
+    }
     List<Map.Entry<String, SerializedItemDescriptor>> itemsOut = new ArrayList<>();
-    for (QueryResponse resp: client.queryPaginator(makeQueryForKind(kind).build())) {
+    // A chunked item is decoded asynchronously; until then it has a null placeholder in itemsOut, so
+    // that the results stay in key order.
+    List<Integer> chunkedIndexes = new ArrayList<>();
+    List<CompletableFuture<SerializedItemDescriptor>> chunkedItems = new ArrayList<>();
+    QueryRequest request = makeQueryForKind(kind, isConsistent(ReadOperation.GET_ALL)).build();
+    return queryAllPages(request, Operation.GET_ALL, resp -> {
       for (Map<String, AttributeValue> item: resp.items()) {
         AttributeValue keyAttr = item.get(SORT_KEY);
         if (keyAttr != null && keyAttr.s() != null) {
+          String key = keyAttr.s();
+          if (ItemChunks.isManifest(item)) {
+            // Start reading the chunks now, so they're fetched while we go on to the next page
+            chunkedIndexes.add(itemsOut.size());
+            chunkedItems.add(decodeItem(namespaceForKind(kind), key, item, Operation.GET_ALL, 1));
+            itemsOut.add(new AbstractMap.SimpleEntry<>(key, null));
+            continue;
+          }
           SerializedItemDescriptor itemOut = unmarshalItem(kind, item);
           if (itemOut != null) {
-            itemsOut.add(new AbstractMap.SimpleEntry<>(keyAttr.s(), itemOut));
+            itemsOut.add(new AbstractMap.SimpleEntry<>(key, itemOut));
           }
         }
       }
+    }).thenCompose(v -> CompletableFuture.allOf(chunkedItems.toArray(new CompletableFuture<?>[chunkedItems.size()])))
+      .thenApply(v -> {
+        if (chunkedItems.isEmpty()) {
+          return new KeyedItems<>(itemsOut);
+        }
+        for (int i = 0; i < chunkedItems.size(); i++) {
+          itemsOut.get(chunkedIndexes.get(i)).setValue(chunkedItems.get(i).join());
+        }
+        itemsOut.removeIf(e -> e.getValue() == null);
+        return new KeyedItems<>(itemsOut);
+      });
+  }
+
+  // Returns as soon as the first page has been read; the rest are read as the items are iterated.
+  private CompletableFuture<KeyedItems<SerializedItemDescriptor>> getAllStreaming(DataKind kind) {
+    QueryRequest request = makeQueryForKind(kind, isConsistent(ReadOperation.GET_ALL))
+        .returnConsumedCapacity(metrics.returnConsumedCapacity())
+        .build();
+    Function<QueryRequest, CompletableFuture<QueryResponse>> pageQuery = req -> startQuery(req).thenApply(resp -> {
+      metrics.capacityConsumed(Operation.GET_ALL, resp.consumedCapacity());
+      return resp;
+    });
+    CompletableFuture<QueryResponse> firstPage = pageQuery.apply(request);
+    return firstPage.thenApply(resp -> new KeyedItems<>(new PagedItems<>(request, firstPage, pageQuery, parallelQueries,
+        item -> {
+          AttributeValue keyAttr = item.get(SORT_KEY);
+          if (keyAttr == null || keyAttr.s() == null) {
+            return null;
+          }
+          String key = keyAttr.s();
+          SerializedItemDescriptor itemOut = ItemChunks.isManifest(item) ?
+              join(decodeItem(namespaceForKind(kind), key, item, Operation.GET_ALL, 1)) : unmarshalItem(kind, item);
+          return itemOut == null ? null : new AbstractMap.SimpleEntry<>(key, itemOut);
+        })));
+  }
+
+  // Keeps the results of a bulk load for the kinds that will be asked for next, unless this store has
+  // written anything since the load started, since the results might not include that write.
+  private void keepBulkLoadResults(Map<String, KeyedItems<SerializedItemDescriptor>> results,
+      long generationAtStart) {
+    synchronized (bulkLoadResults) {
+      if (bulkLoadGeneration.get() == generationAtStart) {
+        bulkLoadedAt = nanoTime.getAsLong();
+        bulkLoadResults.putAll(results);
+      }
     }
-    return new KeyedItems<>(itemsOut);
   }
 
-  @Override
-  public void init(FullDataSet<SerializedItemDescriptor> allData) {
-    // Start by reading the existing keys; we will later delete any of these that weren't in allData.
-    Set<Map.Entry<String, String>> unusedOldKeys = readExistingKeys(allData);
-    
-    List<WriteRequest> requests = new ArrayList<>();
-    int numItems = 0;
-    
-    // Insert or update every provided item
-    for (Map.Entry<DataKind, KeyedItems<SerializedItemDescriptor>> entry: allData.getData()) {
-      DataKind kind = entry.getKey();
-      for (Map.Entry<String, SerializedItemDescriptor> itemEntry: entry.getValue().getItems()) {
-        String key = itemEntry.getKey();
-        Map<String, AttributeValue> encodedItem = marshalItem(kind, key, itemEntry.getValue());
-        
-        if (!checkSizeLimit(encodedItem)) {
-          continue;
+  private void discardBulkLoadResults() {
+    if (bulkLoadScanSegments > 0) {
+      bulkLoadGeneration.incrementAndGet();
+      synchronized (bulkLoadResults) {
+        bulkLoadResults.clear();
+      }
+    }
+  }
+
+  private KeyedItems<SerializedItemDescriptor> takeBulkLoadResult(DataKind kind) {
+    KeyedItems<SerializedItemDescriptor> loaded = bulkLoadResults.remove(namespaceForKind(kind));
+    if (loaded != null && nanoTime.getAsLong() - bulkLoadedAt > BULK_LOAD_RESULT_MAX_AGE_NANOS) {
+      bulkLoadResults.clear();
+      return null;
+    }
+    return loaded;
+  }
+
+  // Reads all of this store's flags and segments, and any other kinds of data, with a parallel scan.
+  // The result is keyed by namespace.
+  CompletableFuture<Map<String, KeyedItems<SerializedItemDescriptor>>> scanAllAsync() {
+    Map<String, List<Map.Entry<String, SerializedItemDescriptor>>> itemsByNamespace = new ConcurrentHashMap<>();
+    List<CompletableFuture<Void>> chunkedItems = Collections.synchronizedList(new ArrayList<>());
+    // Only items with a version are flags or segments; that leaves out "$inited", chunks, and Big
+    // Segment data. Kind names never contain the prefix separator. Replicas are copies of items that
+    // we will already have.
+    ScanRequest.Builder scan = ScanRequest.builder()
+        .tableName(tableName)
+        .consistentRead(isConsistent(ReadOperation.GET_ALL))
+        .totalSegments(bulkLoadScanSegments)
+        .returnConsumedCapacity(metrics.returnConsumedCapacity())
+        .expressionAttributeNames(mapOf("#namespace", PARTITION_KEY, "#version", versionAttribute));
+    if (prefix != null) {
+      scan.filterExpression(
+          "attribute_exists(#version) and begins_with(#namespace, :prefix) and not contains(#namespace, :replica)")
+        .expressionAttributeValues(mapOf(
+            ":prefix", AttributeValue.builder().s(prefix + ":").build(),
+            ":replica", AttributeValue.builder().s(REPLICA_NAMESPACE_SUFFIX).build()));
+    } else {
+      scan.filterExpression(
+          "attribute_exists(#version) and not contains(#namespace, :separator) and not contains(#namespace, :replica)")
+        .expressionAttributeValues(mapOf(
+            ":separator", AttributeValue.builder().s(":").build(),
+            ":replica", AttributeValue.builder().s(REPLICA_NAMESPACE_SUFFIX).build()));
+    }
+    List<Supplier<CompletableFuture<Void>>> segments = new ArrayList<>();
+    for (int i = 0; i < bulkLoadScanSegments; i++) {
+      ScanRequest request = scan.segment(i).build();
+      segments.add(() -> scanAllPages(request, resp -> {
+        for (Map<String, AttributeValue> item: resp.items()) {
+          String namespace = item.get(PARTITION_KEY).s();
+          String key = item.get(SORT_KEY).s();
+          List<Map.Entry<String, SerializedItemDescriptor>> itemsOut = itemsByNamespace.computeIfAbsent(namespace,
+              ns -> Collections.synchronizedList(new ArrayList<>()));
+          CompletableFuture<SerializedItemDescriptor> decoded = decodeItem(namespace, key, item, Operation.GET_ALL, 1);
+          if (decoded.isDone()) {
+            addDecodedItem(itemsOut, key, decoded.join());
+          } else {
+            chunkedItems.add(decoded.thenAccept(itemOut -> addDecodedItem(itemsOut, key, itemOut)));
+          }
         }
-        
-        requests.add(WriteRequest.builder().putRequest(builder -> builder.item(encodedItem)).build());
-        
-        Map.Entry<String, String> combinedKey = new AbstractMap.SimpleEntry<>(namespaceForKind(kind), key);
-        unusedOldKeys.remove(combinedKey);
-        
-        numItems++;
+      }));
+    }
+    return FanOut.run(segments, new CongestionWindow(bulkLoadScanSegments), executor)
+        .thenCompose(v -> CompletableFuture.allOf(chunkedItems.toArray(new CompletableFuture<?>[chunkedItems.size()])))
+        .thenApply(v -> {
+          Map<String, KeyedItems<SerializedItemDescriptor>> results = new HashMap<>();
+          for (Map.Entry<String, List<Map.Entry<String, SerializedItemDescriptor>>> e: itemsByNamespace.entrySet()) {
+            results.put(e.getKey(), new KeyedItems<>(e.getValue()));
+          }
+          return results;
+        });
+  }
+
+  private static void addDecodedItem(List<Map.Entry<String, SerializedItemDescriptor>> itemsOut, String key,
+      SerializedItemDescriptor item) {
+    if (item != null) {
+      itemsOut.add(new AbstractMap.SimpleEntry<>(key, item));
+    }
+  }
+
+  private CompletableFuture<Void> scanAllPages(ScanRequest request, Consumer<ScanResponse> pageAction) {
+    return client.scan(request).thenCompose(resp -> {
+      metrics.capacityConsumed(Operation.GET_ALL, resp.consumedCapacity());
+      pageAction.accept(resp);
+      if (resp.lastEvaluatedKey() == null || resp.lastEvaluatedKey().isEmpty()) {
+        return CompletableFuture.completedFuture(null);
       }
+      return scanAllPages(request.toBuilder().exclusiveStartKey(resp.lastEvaluatedKey()).build(), pageAction);
+    });
+  }
+
+  CompletableFuture<Void> initAsync(FullDataSet<SerializedItemDescriptor> allData) {
+    return metrics.timed(Operation.INIT, () -> forgetInitializedOnError(initInternal(allData)));
+  }
+
+  private CompletableFuture<Void> initInternal(FullDataSet<SerializedItemDescriptor> allData) {
+    discardBulkLoadResults();
+    if (upsertBuffer != null) {
+      upsertBuffer.clear(); // the new data replaces anything we hadn't written yet
     }
-    
-    // Now delete any previously existing items whose keys were not in the current data
-    for (Map.Entry<String, String> combinedKey: unusedOldKeys) {
-      if (!combinedKey.getKey().equals(initedKey())) {
-        requests.add(WriteRequest.builder()
-            .deleteRequest(builder ->
-                builder.key(makeKeysMap(combinedKey.getKey(), combinedKey.getValue())))
-            .build());
+    if (inFlightReads != null) {
+      inFlightReads.invalidateAll();
+    }
+    // Start by reading the existing keys; we will later delete any of these that weren't in allData.
+    return readExistingItems(allData).thenCompose(unusedOldItems -> {
+      List<WriteRequest> requests = new ArrayList<>();
+      List<Map<String, AttributeValue>> newChunks = new ArrayList<>();
+      int numItems = 0, numUnchanged = 0;
+      
+      // Insert or update every provided item
+      for (Map.Entry<DataKind, KeyedItems<SerializedItemDescriptor>> entry: allData.getData()) {
+        DataKind kind = entry.getKey();
+        Set<String> replicatedKeys = new HashSet<>();
+        for (Map.Entry<String, SerializedItemDescriptor> itemEntry: entry.getValue().getItems()) {
+          String key = itemEntry.getKey();
+          Map.Entry<String, String> combinedKey = new AbstractMap.SimpleEntry<>(namespaceForKind(kind), key);
+          
+          if (skipUnchangedItemsOnInit) {
+            Map<String, AttributeValue> oldItem = unusedOldItems.get(combinedKey);
+            if (oldItem != null && hasVersion(oldItem, itemEntry.getValue().getVersion())) {
+              // Versions are never reused for different data, so there's nothing to write; but if it
+              // is stored in chunks, those chunks are still in use.
+              unusedOldItems.remove(combinedKey);
+              for (String chunkKey: ItemChunks.chunkKeys(key, oldItem)) {
+                unusedOldItems.remove(new AbstractMap.SimpleEntry<>(chunkNamespaceForKind(kind), chunkKey));
+              }
+              if (isHotItem(key)) {
+                // Rewrite the replicas anyway, in case they were missing. A chunked item's replicas are
+                // copies of the stored manifest, so that they refer to the chunks that are already there.
+                Map<String, AttributeValue> encodedItem = ItemChunks.isManifest(oldItem) ? oldItem :
+                  marshalForWrite(kind, key, itemEntry.getValue(), Operation.INIT, newChunks);
+                if (encodedItem != null) {
+                  requests.addAll(putRequests(replicasOf(encodedItem)));
+                  replicatedKeys.add(key);
+                }
+              }
+              numItems++;
+              numUnchanged++;
+              continue;
+            }
+          }
+          
+          Map<String, AttributeValue> encodedItem = marshalForWrite(kind, key, itemEntry.getValue(), Operation.INIT,
+              newChunks);
+          if (encodedItem == null) {
+            continue;
+          }
+          
+          requests.add(WriteRequest.builder().putRequest(builder -> builder.item(encodedItem)).build());
+          if (isHotItem(key)) {
+            requests.addAll(putRequests(replicasOf(encodedItem)));
+            replicatedKeys.add(key);
+          }
+          
+          unusedOldItems.remove(combinedKey);
+          
+          numItems++;
+        }
+        // Replicas are not in the namespaces that we queried for existing items, so delete the ones for
+        // any hot keys that are not in the data, in case they were there before.
+        if (hotItemReplicas > 0) {
+          for (String key: hotItemKeys) {
+            if (!replicatedKeys.contains(key)) {
+              for (int i = 1; i <= hotItemReplicas; i++) {
+                Map<String, AttributeValue> replicaKey = makeKeysMap(replicaNamespace(namespaceForKind(kind), i), key);
+                requests.add(WriteRequest.builder().deleteRequest(builder -> builder.key(replicaKey)).build());
+              }
+            }
+          }
+        }
       }
+      
+      // Now delete any previously existing items whose keys were not in the current data. Every new
+      // chunk has a new key, so that includes all of the old chunks; those are deleted last, since
+      // until then some readers may still have the manifests that refer to them.
+      List<WriteRequest> oldChunkDeletes = new ArrayList<>();
+      for (Map.Entry<String, String> combinedKey: unusedOldItems.keySet()) {
+        if (!combinedKey.getKey().equals(initedKey)) {
+          WriteRequest delete = WriteRequest.builder()
+              .deleteRequest(builder ->
+                  builder.key(makeKeysMap(combinedKey.getKey(), combinedKey.getValue())))
+              .build();
+          if (combinedKey.getKey().endsWith(ItemChunks.NAMESPACE_SUFFIX)) {
+            oldChunkDeletes.add(delete);
+          } else {
+            requests.add(delete);
+          }
+        }
+      }
+      
+      int totalItems = numItems, totalUnchanged = numUnchanged;
+      return batchWriter.write(putRequests(newChunks), Operation.INIT)
+          .thenCompose(v -> batchWriter.write(requests, Operation.INIT))
+          .thenCompose(v -> batchWriter.write(oldChunkDeletes, Operation.INIT))
+          // Now set the special key that we check in initializedInternal(). This is deliberately a
+          // separate step, so that it can't be written until every batch above has been acknowledged.
+          .thenCompose(v -> batchWriter.write(putRequests(withReplicas(makeKeysMap(initedKey, initedKey))),
+              Operation.INIT))
+          .thenRun(() -> {
+            if (inFlightReads != null) {
+              inFlightReads.invalidateAll();
+            }
+            rememberInitialized();
+            staleReplicas.clear(); // init() rewrites all of the replicas
+            if (skipUnchangedItemsOnInit) {
+              logger.info("Initialized table {} with {} items ({} were unchanged)", tableName, totalItems,
+                  totalUnchanged);
+            } else {
+              logger.info("Initialized table {} with {} items", tableName, totalItems);
+            }
+          });
+    });
+  }
+
+  CompletableFuture<Boolean> upsertAsync(DataKind kind, String key, SerializedItemDescriptor newItem) {
+    if (upsertBuffer != null) {
+      return CompletableFuture.completedFuture(upsertBuffer.add(kind, namespaceForKind(kind), key, newItem));
     }
-    
-    // Now set the special key that we check in initializedInternal()
-    requests.add(WriteRequest.builder()
-        .putRequest(builder -> builder.item(makeKeysMap(initedKey(), initedKey())))
-        .build());
-    
-    batchWriteRequests(client, tableName, requests);
-    
-    logger.info("Initialized table {} with {} items", tableName, numItems);
+    return writeUpsert(kind, key, newItem);
   }
 
-  @Override
-  public boolean upsert(DataKind kind, String key, SerializedItemDescriptor newItem) {
-    Map<String, AttributeValue> encodedItem = marshalItem(kind, key, newItem);
-    if (!checkSizeLimit(encodedItem)) {
-      return false;
+  private CompletableFuture<Boolean> writeUpsert(DataKind kind, String key, SerializedItemDescriptor newItem) {
+    return metrics.timed(Operation.UPSERT, () -> forgetInitializedOnError(upsertInternal(kind, key, newItem)));
+  }
+
+  private CompletableFuture<Boolean> upsertInternal(DataKind kind, String key, SerializedItemDescriptor newItem) {
+    discardBulkLoadResults();
+    List<Map<String, AttributeValue>> newChunks = new ArrayList<>();
+    Map<String, AttributeValue> encodedItem = marshalForWrite(kind, key, newItem, Operation.UPSERT, newChunks);
+    if (encodedItem == null) {
+      return CompletableFuture.completedFuture(false);
     }
     
     if (updateHook != null) { // instrumentation for tests
       updateHook.run();
     }
     
-    try {
-      client.putItem(builder -> builder.tableName(tableName)
-          .item(encodedItem)
-          .conditionExpression("attribute_not_exists(#namespace) or attribute_not_exists(#key) or :version > #version")
-          .expressionAttributeNames(mapOf(
-              "#namespace", PARTITION_KEY,
-              "#key", SORT_KEY,
-              "#version", versionAttribute))
-          .expressionAttributeValues(mapOf(
-              ":version", AttributeValue.builder().n(String.valueOf(newItem.getVersion())).build()))
-      );
-    } catch (ConditionalCheckFailedException e) {
-      // The item was not updated because there's a newer item in the database.
-      return false;
+    PutItemRequest request = PutItemRequest.builder()
+        .tableName(tableName)
+        // With chunking, we need the old item to know whether it had chunks that are now obsolete
+        .returnValues(chunkLargeItems ? ReturnValue.ALL_OLD : ReturnValue.NONE)
+        .returnConsumedCapacity(metrics.returnConsumedCapacity())
+        .item(encodedItem)
+        .conditionExpression(UPSERT_CONDITION)
+        .expressionAttributeNames(UPSERT_ATTRIBUTE_NAMES)
+        .expressionAttributeValues(mapOf(
+            ":version", AttributeValue.builder().n(String.valueOf(newItem.getVersion())).build()))
+        .build();
+    Map.Entry<String, String> readKey = inFlightReads == null ? null :
+      new AbstractMap.SimpleEntry<>(namespaceForKind(kind), key);
+    if (readKey != null) {
+      inFlightReads.invalidate(readKey);
     }
-    
-    return true;
+    // Any chunks must exist before the manifest that refers to them. Since writing them is expensive,
+    // first find out from the stored version whether the conditional put would fail anyway.
+    CompletableFuture<Boolean> worthWriting = newChunks.isEmpty() ? CompletableFuture.completedFuture(true) :
+      getVersionAsync(namespaceForKind(kind), key, true, Operation.UPSERT)
+        .thenApply(stored -> stored == null || newItem.getVersion() > stored);
+    CompletableFuture<PutItemResponse> written = worthWriting.thenCompose(ok -> !ok ?
+        CompletableFuture.<PutItemResponse>completedFuture(null) :
+        batchWriter.write(putRequests(newChunks), Operation.UPSERT).thenCompose(v -> client.putItem(request)));
+    return written.handle((resp, error) -> {
+      if (readKey != null) {
+        inFlightReads.invalidate(readKey);
+      }
+      if (error == null && resp == null) { // there's a newer item, so we didn't try
+        return CompletableFuture.completedFuture(false);
+      }
+      if (error == null) {
+        metrics.capacityConsumed(Operation.UPSERT, resp.consumedCapacity());
+        // The replicas must be updated before the old chunks are deleted, since they may still refer to them.
+        CompletableFuture<Void> replicated = isHotItem(key) ? writeReplicas(request) :
+          CompletableFuture.completedFuture(null);
+        return replicated.thenCompose(v -> deleteChunks(kind, ItemChunks.chunkKeys(key, resp.attributes())))
+            .thenApply(x -> true);
+      }
+      RuntimeException e = DynamoDbClientAdapter.asUnchecked(error);
+      if (e instanceof ConditionalCheckFailedException) {
+        // The item was not updated because there's a newer item in the database.
+        return deleteChunks(kind, ItemChunks.chunkKeys(key, encodedItem)).thenApply(x -> false);
+      }
+      throw e;
+    }).thenCompose(f -> f);
+  }
+
+  // Writes the replicas of a hot item that has just been written with the given conditional put. A
+  // replica that already has a newer version is left alone, as the original would have been. Since
+  // the original has been written, a replica that can't be written is logged rather than failing the
+  // upsert, and the item is marked so that reads go to the original until a later write succeeds.
+  private CompletableFuture<Void> writeReplicas(PutItemRequest original) {
+    Map.Entry<String, String> itemKey = new AbstractMap.SimpleEntry<>(
+        original.item().get(PARTITION_KEY).s(), original.item().get(SORT_KEY).s());
+    AtomicBoolean failed = new AtomicBoolean();
+    List<Supplier<CompletableFuture<Void>>> puts = new ArrayList<>();
+    for (Map<String, AttributeValue> replica: replicasOf(original.item())) {
+      PutItemRequest request = original.toBuilder().item(replica).returnValues(ReturnValue.NONE).build();
+      puts.add(() -> writeReplica(request, 1).exceptionally(error -> {
+        failed.set(true);
+        metrics.replicaWriteFailed(Operation.UPSERT);
+        logger.warn("Failed to update replica \"{}\" of item \"{}\": {}", request.item().get(PARTITION_KEY).s(),
+            itemKey.getValue(), DynamoDbClientAdapter.asUnchecked(error).toString());
+        return null;
+      }));
+    }
+    return FanOut.run(puts, new CongestionWindow(puts.size()), executor).thenRun(() -> {
+      if (failed.get()) {
+        staleReplicas.add(itemKey);
+      } else {
+        staleReplicas.remove(itemKey);
+      }
+    });
+  }
+
+  private CompletableFuture<Void> writeReplica(PutItemRequest request, int attempt) {
+    return client.putItem(request).handle((resp, error) -> {
+      if (error == null) {
+        metrics.capacityConsumed(Operation.UPSERT, resp.consumedCapacity());
+        return CompletableFuture.<Void>completedFuture(null);
+      }
+      RuntimeException e = DynamoDbClientAdapter.asUnchecked(error);
+      if (e instanceof ConditionalCheckFailedException) {
+        return CompletableFuture.<Void>completedFuture(null);
+      }
+      if (!Backoff.isThrottling(e) || attempt >= Backoff.MAX_ATTEMPTS) {
+        throw e;
+      }
+      metrics.requestThrottled(Operation.UPSERT);
+      return client.delay(Backoff.delayMillis(attempt)).thenCompose(v -> writeReplica(request, attempt + 1));
+    }).thenCompose(f -> f);
   }
 
   @Override
-  public boolean isInitialized() {
-    GetItemResponse resp = getItemByKeys(initedKey(), initedKey());
-    return resp.item() != null && resp.item().size() > 0;
+  public Integer getVersion(DataKind kind, String key) {
+    return join(getVersionAsync(kind, key));
   }
 
-  //@Override
-  public boolean isStoreAvailable() {
+  CompletableFuture<Integer> getVersionAsync(DataKind kind, String key) {
+    return metrics.timed(Operation.GET, () -> forgetInitializedOnError(
+        getVersionAsync(namespaceForKind(kind), key, isConsistent(ReadOperation.GET), Operation.GET)));
+  }
+
+  @Override
+  public Map<String, Integer> getVersions(DataKind kind) {
+    return join(getVersionsAsync(kind));
+  }
+
+  CompletableFuture<Map<String, Integer>> getVersionsAsync(DataKind kind) {
+    return metrics.timed(Operation.GET_ALL, () -> {
+      Map<String, Integer> versions = new HashMap<>();
+      QueryRequest request = makeQueryForKind(kind, isConsistent(ReadOperation.GET_ALL))
+          .projectionExpression("#key, #version")
+          .expressionAttributeNames(KEY_AND_VERSION_ATTRIBUTE_NAMES)
+          .build();
+      return forgetInitializedOnError(queryAllPages(request, Operation.GET_ALL, resp -> {
+        for (Map<String, AttributeValue> item: resp.items()) {
+          Integer version = versionOf(item);
+          if (version != null) {
+            versions.put(item.get(SORT_KEY).s(), version);
+          }
+        }
+      }).thenApply(v -> versions));
+    });
+  }
+
+  private CompletableFuture<Integer> getVersionAsync(String namespace, String key, boolean consistentRead,
+      Operation metricsOperation) {
+    GetItemRequest request = GetItemRequest.builder()
+        .tableName(tableName)
+        .consistentRead(consistentRead)
+        .key(makeKeysMap(namespace, key))
+        .projectionExpression("#version")
+        .expressionAttributeNames(VERSION_ATTRIBUTE_NAMES)
+        .returnConsumedCapacity(metrics.returnConsumedCapacity())
+        .build();
+    return client.getItem(request).thenApply(resp -> {
+      metrics.capacityConsumed(metricsOperation, resp.consumedCapacity());
+      return resp.item() == null ? null : versionOf(resp.item());
+    });
+  }
+
+  private static Integer versionOf(Map<String, AttributeValue> item) {
+    AttributeValue versionAttr = item.get(versionAttribute);
+    if (versionAttr == null || versionAttr.n() == null) {
+      return null;
+    }
     try {
-      isInitialized(); // don't care about the return value, just that it doesn't throw an exception
-      return true;
-    } catch (Exception e) { // don't care about exception class, since any exception means the DynamoDB request couldn't be made
-      return false;
+      return Integer.valueOf(versionAttr.n());
+    } catch (NumberFormatException e) {
+      return null;
     }
   }
-  
-  public void setUpdateHook(Runnable updateHook) {
-    this.updateHook = updateHook;
+
+  CompletableFuture<Boolean> isInitializedAsync() {
+    return metrics.timed(Operation.IS_INITIALIZED, () -> {
+      if (initializedCached && nanoTime.getAsLong() - initializedExpiresAt < 0) {
+        return CompletableFuture.completedFuture(true);
+      }
+      return readInitialized();
+    });
+  }
+
+  private CompletableFuture<Boolean> readInitialized() {
+    CompletableFuture<Boolean> marker = readInitedMarker(0);
+    if (hotItemReplicas > 0) {
+      marker = readInitedMarker(ThreadLocalRandom.current().nextInt(hotItemReplicas) + 1)
+          .thenCompose(inited -> inited ? CompletableFuture.completedFuture(true) : readInitedMarker(0));
+    }
+    return forgetInitializedOnError(marker.thenApply(inited -> {
+      if (inited) {
+        rememberInitialized();
+      }
+      return inited;
+    }));
+  }
+
+  private CompletableFuture<Boolean> readInitedMarker(int replica) {
+    return getItem(initedRequests[replica], Operation.IS_INITIALIZED)
+        .thenApply(resp -> resp.item() != null && resp.item().size() > 0);
+  }
+
+  private void rememberInitialized() {
+    if (initializedCacheNanos > 0) {
+      initializedExpiresAt = nanoTime.getAsLong() + initializedCacheNanos;
+      initializedCached = true;
+    }
+  }
+
+  // Any failure might mean that the table has been replaced or emptied, so the next isInitialized()
+  // should check again.
+  private <T> CompletableFuture<T> forgetInitializedOnError(CompletableFuture<T> future) {
+    if (initializedCacheNanos <= 0) {
+      return future;
+    }
+    return future.whenComplete((result, error) -> {
+      if (error != null) {
+        initializedCached = false;
+      }
+    });
   }
 
   private String namespaceForKind(DataKind kind) {
-    return prefixedNamespace(kind.getName());
+    return kindInfo(kind).namespace;
+  }
+  
+  private String chunkNamespaceForKind(DataKind kind) {
+    return kindInfo(kind).chunkNamespace;
+  }
+
+  private KindInfo kindInfo(DataKind kind) {
+    KindInfo info = kinds.get(kind.getName());
+    if (info == null) {
+      String namespace = prefixedNamespace(kind.getName());
+      info = new KindInfo(namespace, namespaceValue(namespace),
+          prefixedNamespace(kind.getName() + ItemChunks.NAMESPACE_SUFFIX));
+      kinds.putIfAbsent(kind.getName(), info);
+    }
+    return info;
+  }
+
+  private static final class KindInfo {
+    final String namespace;
+    final AttributeValue namespaceValue;
+    final String chunkNamespace;
+
+    KindInfo(String namespace, AttributeValue namespaceValue, String chunkNamespace) {
+      this.namespace = namespace;
+      this.namespaceValue = namespaceValue;
+      this.chunkNamespace = chunkNamespace;
+    }
   }
   
-  private String initedKey() {
-    return prefixedNamespace("$inited");
+  private boolean isHotItem(String key) {
+    return hotItemReplicas > 0 && hotItemKeys.contains(key);
+  }
+
+  private static String replicaNamespace(String namespace, int replica) {
+    return namespace + REPLICA_NAMESPACE_SUFFIX + replica;
+  }
+
+  private String randomReplicaNamespace(String namespace) {
+    return replicaNamespace(namespace, ThreadLocalRandom.current().nextInt(hotItemReplicas) + 1);
   }
 
-  private QueryRequest.Builder makeQueryForKind(DataKind kind) {
+  // Returns copies of an item with each of the replica namespaces in place of its own.
+  private List<Map<String, AttributeValue>> replicasOf(Map<String, AttributeValue> item) {
+    String namespace = item.get(PARTITION_KEY).s();
+    List<Map<String, AttributeValue>> replicas = new ArrayList<>(hotItemReplicas);
+    for (int i = 1; i <= hotItemReplicas; i++) {
+      Map<String, AttributeValue> replica = new HashMap<>(item);
+      replica.put(PARTITION_KEY, AttributeValue.builder().s(replicaNamespace(namespace, i)).build());
+      replicas.add(replica);
+    }
+    return replicas;
+  }
+
+  private List<Map<String, AttributeValue>> withReplicas(Map<String, AttributeValue> item) {
+    List<Map<String, AttributeValue>> items = new ArrayList<>(replicasOf(item));
+    items.add(0, item);
+    return items;
+  }
+
+  private QueryRequest.Builder makeQueryForKind(DataKind kind, boolean consistentRead) {
+    return makeQueryForNamespace(namespaceForKind(kind), consistentRead);
+  }
+
+  private QueryRequest.Builder makeQueryForNamespace(String namespace, boolean consistentRead) {
     Map<String, Condition> keyConditions = mapOf(
         PARTITION_KEY,
         Condition.builder()
           .comparisonOperator(ComparisonOperator.EQ)
-          .attributeValueList(AttributeValue.builder().s(namespaceForKind(kind)).build())
+          .attributeValueList(AttributeValue.builder().s(namespace).build())
           .build()
     );
     return QueryRequest.builder()
         .tableName(tableName)
-        .consistentRead(true)
+        .consistentRead(consistentRead)
         .keyConditions(keyConditions);
   }
+
+  // Equivalent to iterating over queryPaginator(), but works the same way with either kind of client.
+  // The page action is called for one page at a time, in order. If parallelQueries is enabled, the
+  // request for each page is sent before the action is called for the previous page.
+  private CompletableFuture<Void> queryAllPages(QueryRequest request, Operation metricsOperation,
+      Consumer<QueryResponse> pageAction) {
+    QueryRequest firstPage = request.toBuilder().returnConsumedCapacity(metrics.returnConsumedCapacity()).build();
+    if (parallelQueries) {
+      return queryPagesWithPrefetch(startQuery(firstPage), firstPage, metricsOperation, pageAction);
+    }
+    return queryPages(firstPage, metricsOperation, pageAction);
+  }
+
+  private CompletableFuture<Void> queryPages(QueryRequest request, Operation metricsOperation,
+      Consumer<QueryResponse> pageAction) {
+    return client.query(request).thenCompose(resp -> {
+      metrics.capacityConsumed(metricsOperation, resp.consumedCapacity());
+      pageAction.accept(resp);
+      if (isLastPage(resp)) {
+        return CompletableFuture.completedFuture(null);
+      }
+      return queryPages(request.toBuilder().exclusiveStartKey(resp.lastEvaluatedKey()).build(), metricsOperation,
+          pageAction);
+    });
+  }
+
+  private CompletableFuture<Void> queryPagesWithPrefetch(CompletableFuture<QueryResponse> page,
+      QueryRequest request, Operation metricsOperation, Consumer<QueryResponse> pageAction) {
+    return page.thenCompose(resp -> {
+      CompletableFuture<QueryResponse> nextPage = isLastPage(resp) ? null :
+        startQuery(request.toBuilder().exclusiveStartKey(resp.lastEvaluatedKey()).build());
+      metrics.capacityConsumed(metricsOperation, resp.consumedCapacity());
+      pageAction.accept(resp);
+      return nextPage == null ? CompletableFuture.<Void>completedFuture(null) :
+        queryPagesWithPrefetch(nextPage, request, metricsOperation, pageAction);
+    });
+  }
+
+  // With the synchronous client, a query has to be started on a worker thread for the caller to be
+  // able to do anything else while it is in progress.
+  private CompletableFuture<QueryResponse> startQuery(QueryRequest request) {
+    if (client.isAsync()) {
+      return client.query(request);
+    }
+    try {
+      return CompletableFuture.supplyAsync(() -> client.query(request), executor).thenCompose(f -> f);
+    } catch (RuntimeException e) { // executor was shut down
+      return DynamoDbClientAdapter.failedFuture(e);
+    }
+  }
+
+  private static boolean isLastPage(QueryResponse resp) {
+    return PagedItems.isLastPage(resp);
+  }
   
-  private Set<Map.Entry<String, String>> readExistingKeys(FullDataSet<?> kindsFromThisDataSet) {
-    Set<Map.Entry<String, String>> keys = new HashSet<>();
+  // Returns the keys of all existing items of the kinds in the data set. If skipUnchangedItemsOnInit is
+  // enabled, each key is mapped to the item's version and chunk attributes; otherwise to an empty map.
+  private CompletableFuture<Map<Map.Entry<String, String>, Map<String, AttributeValue>>> readExistingItems(
+      FullDataSet<?> kindsFromThisDataSet) {
+    Map<Map.Entry<String, String>, Map<String, AttributeValue>> items = new ConcurrentHashMap<>();
+    List<String> namespaces = new ArrayList<>();
     for (Map.Entry<DataKind, ?> e: kindsFromThisDataSet.getData()) {
-      DataKind kind = e.getKey();
-      QueryRequest req = makeQueryForKind(kind)
-        .projectionExpression("#namespace, #key")
-        .expressionAttributeNames(mapOf(
-            "#namespace", PARTITION_KEY, "#key", SORT_KEY))
-        .build();
-      QueryIterable queryResults = client.queryPaginator(req);
-      for (QueryResponse resp: queryResults) {
+      namespaces.add(namespaceForKind(e.getKey()));
+      if (chunkLargeItems) {
+        namespaces.add(chunkNamespaceForKind(e.getKey()));
+      }
+    }
+    List<Supplier<CompletableFuture<Void>>> queries = new ArrayList<>();
+    for (String ns: namespaces) {
+      QueryRequest.Builder req = makeQueryForNamespace(ns, true);
+      if (skipUnchangedItemsOnInit) {
+        // This is every attribute of a chunk manifest, so that one can be copied to the replicas
+        req.projectionExpression("#namespace, #key, #version, #chunks, #chunkSet, #encoding")
+          .expressionAttributeNames(mapOf(
+            "#namespace", PARTITION_KEY, "#key", SORT_KEY, "#version", versionAttribute,
+            "#chunks", ItemChunks.CHUNK_COUNT_ATTRIBUTE, "#chunkSet", ItemChunks.CHUNK_SET_ATTRIBUTE,
+            "#encoding", ItemCompression.ENCODING_ATTRIBUTE));
+      } else {
+        req.projectionExpression("#namespace, #key")
+          .expressionAttributeNames(mapOf(
+            "#namespace", PARTITION_KEY, "#key", SORT_KEY));
+      }
+      queries.add(() -> queryAllPages(req.build(), Operation.INIT, resp -> {
         for (Map<String, AttributeValue> item: resp.items()) {
           String namespace = item.get(PARTITION_KEY).s();
           String key = item.get(SORT_KEY).s();
-          keys.add(new AbstractMap.SimpleEntry<>(namespace, key));
+          items.put(new AbstractMap.SimpleEntry<>(namespace, key),
+              skipUnchangedItemsOnInit ? item : Collections.<String, AttributeValue>emptyMap());
         }
-      }
+      }));
     }
-    return keys;
+    // Without parallelQueries, a window of 1 runs the queries one after another as before.
+    CongestionWindow window = new CongestionWindow(parallelQueries ? Math.max(1, queries.size()) : 1);
+    return FanOut.run(queries, window, executor).thenApply(v -> items);
   }
   
-  private Map<String, AttributeValue> marshalItem(DataKind kind, String key, SerializedItemDescriptor item) {
+  Map<String, AttributeValue> marshalItem(DataKind kind, String key, SerializedItemDescriptor item) {
     String json = item.isDeleted() ? deletedItemPlaceholder : item.getSerializedItem();
+    if (compressionThreshold >= 0 && !item.isDeleted() && utf8Length(json) >= compressionThreshold) {
+      return mapOf(
+          PARTITION_KEY, kindInfo(kind).namespaceValue,
+          SORT_KEY, AttributeValue.builder().s(key).build(),
+          versionAttribute, AttributeValue.builder().n(String.valueOf(item.getVersion())).build(),
+          itemJsonAttribute, AttributeValue.builder().b(ItemCompression.gzip(json)).build(),
+          ItemCompression.ENCODING_ATTRIBUTE, AttributeValue.builder().s(ItemCompression.GZIP).build()
+      );
+    }
     return mapOf(
-        PARTITION_KEY, AttributeValue.builder().s(namespaceForKind(kind)).build(),
+        PARTITION_KEY, kindInfo(kind).namespaceValue,
         SORT_KEY, AttributeValue.builder().s(key).build(),
         versionAttribute, AttributeValue.builder().n(String.valueOf(item.getVersion())).build(),
         itemJsonAttribute, AttributeValue.builder().s(json).build()
     );
   }
   
-  private SerializedItemDescriptor unmarshalItem(DataKind kind, Map<String, AttributeValue> item) {
-    if (item == null || item.size() == 0) {
+  // Returns the item to store under the flag or segment's own key, after adding to chunksOut any chunks
+  // that must be stored before it; or null if the item is too large to store.
+  private Map<String, AttributeValue> marshalForWrite(DataKind kind, String key, SerializedItemDescriptor item,
+      Operation metricsOperation, List<Map<String, AttributeValue>> chunksOut) {
+    Map<String, AttributeValue> encodedItem = marshalItem(kind, key, item);
+    int size = itemSize(encodedItem);
+    metrics.itemWritten(metricsOperation, size);
+    if (size <= DYNAMO_DB_MAX_ITEM_SIZE) {
+      return encodedItem;
+    }
+    if (chunkLargeItems) {
+      AttributeValue data = encodedItem.get(itemJsonAttribute);
+      List<SdkBytes> chunks = ItemChunks.split(data.b() != null ? data.b().asByteArray() :
+        data.s().getBytes(StandardCharsets.UTF_8));
+      if (chunks != null) {
+        String chunkSetId = ItemChunks.newChunkSetId();
+        AttributeValue chunkNamespace = namespaceValue(chunkNamespaceForKind(kind));
+        for (int i = 0; i < chunks.size(); i++) {
+          chunksOut.add(mapOf(
+              PARTITION_KEY, chunkNamespace,
+              SORT_KEY, AttributeValue.builder().s(ItemChunks.chunkKey(key, chunkSetId, i)).build(),
+              ItemChunks.CHUNK_DATA_ATTRIBUTE, AttributeValue.builder().b(chunks.get(i)).build()));
+        }
+        Map<String, AttributeValue> manifest = new HashMap<>(encodedItem);
+        manifest.remove(itemJsonAttribute);
+        manifest.put(ItemChunks.CHUNK_COUNT_ATTRIBUTE, AttributeValue.builder().n(String.valueOf(chunks.size())).build());
+        manifest.put(ItemChunks.CHUNK_SET_ATTRIBUTE, AttributeValue.builder().s(chunkSetId).build());
+        return manifest;
+      }
+    }
+    logger.error("The item \"{}\" in \"{}\" was too large to store in DynamoDB and was dropped",
+        key, namespaceForKind(kind));
+    return null;
+  }
+  
+  private static boolean hasVersion(Map<String, AttributeValue> item, int version) {
+    AttributeValue versionAttr = item.get(versionAttribute);
+    return versionAttr != null && String.valueOf(version).equals(versionAttr.n());
+  }
+  
+  private List<WriteRequest> putRequests(List<Map<String, AttributeValue>> items) {
+    List<WriteRequest> requests = new ArrayList<>(items.size());
+    for (Map<String, AttributeValue> item: items) {
+      requests.add(WriteRequest.builder().putRequest(builder -> builder.item(item)).build());
+    }
+    return requests;
+  }
+  
+  // Deleting obsolete chunks is only housekeeping; if it fails, the write that made them obsolete has
+  // still succeeded, and the next init() will delete them.
+  private CompletableFuture<Void> deleteChunks(DataKind kind, List<String> chunkKeys) {
+    if (chunkKeys.isEmpty()) {
+      return CompletableFuture.completedFuture(null);
+    }
+    String chunkNamespace = chunkNamespaceForKind(kind);
+    List<WriteRequest> requests = new ArrayList<>(chunkKeys.size());
+    for (String chunkKey: chunkKeys) {
+      requests.add(WriteRequest.builder()
+          .deleteRequest(builder -> builder.key(makeKeysMap(chunkNamespace, chunkKey)))
+          .build());
+    }
+    return batchWriter.write(requests, Operation.UPSERT).handle((v, error) -> {
+      if (error != null) {
+        logger.warn("Unable to delete obsolete chunks of an item in \"{}\": {}", chunkNamespace,
+            DynamoDbClientAdapter.asUnchecked(error).toString());
+      }
       return null;
+    });
+  }
+  
+  // Like unmarshalItem, but also handles an item that is stored as chunks. The namespace is that of the
+  // flag or segment's own item.
+  private CompletableFuture<SerializedItemDescriptor> decodeItem(String namespace, String key,
+      Map<String, AttributeValue> item, Operation metricsOperation, int attempt) {
+    if (!ItemChunks.isManifest(item)) {
+      return CompletableFuture.completedFuture(unmarshalPlainItem(item));
     }
-    AttributeValue jsonAttr = item.get(itemJsonAttribute);
-    if (jsonAttr == null || jsonAttr.s() == null) {
-      throw new IllegalStateException("DynamoDB map did not contain expected item string");
+    AttributeValue chunkNamespace = namespaceValue(namespace + ItemChunks.NAMESPACE_SUFFIX);
+    return ItemChunks.read(client, tableName, chunkNamespace, key, item, metrics, metricsOperation).thenCompose(data -> {
+      if (data != null) {
+        AttributeValue encodingAttr = item.get(ItemCompression.ENCODING_ATTRIBUTE);
+        String json = encodingAttr != null && encodingAttr.s() != null ?
+            decodeJson(encodingAttr.s(), AttributeValue.builder().b(SdkBytes.fromByteArrayUnsafe(data)).build()) :
+            new String(data, StandardCharsets.UTF_8);
+        return CompletableFuture.completedFuture(makeItemDescriptor(item, json));
+      }
+      // The item was replaced after we read it, and the chunks we were looking for have been deleted.
+      if (attempt >= MAX_CHUNKED_READ_ATTEMPTS) {
+        throw new IllegalStateException("DynamoDB item \"" + key + "\" was missing some of its chunks");
+      }
+      return getItemByKeys(namespace, key, true, metricsOperation)
+          .thenCompose(resp -> decodeItem(namespace, key, resp.item(), metricsOperation, attempt + 1));
+    });
+  }
+  
+  SerializedItemDescriptor unmarshalItem(DataKind kind, Map<String, AttributeValue> item) {
+    return unmarshalPlainItem(item);
+  }
+  
+  private static SerializedItemDescriptor unmarshalPlainItem(Map<String, AttributeValue> item) {
+    if (item == null || item.size() == 0) {
+      return null;
     }
-    String jsonValue = jsonAttr.s();
+    return makeItemDescriptor(item, itemJson(item));
+  }
+  
+  private static SerializedItemDescriptor makeItemDescriptor(Map<String, AttributeValue> item, String jsonValue) {
     AttributeValue versionAttr = item.get(versionAttribute);
     if (versionAttr == null || versionAttr.n() == null) {
       throw new IllegalStateException("DynamoDB map did not contain expected version attribute");
@@ -278,17 +1121,35 @@ final class DynamoDbDataStoreImpl extends DynamoDbStoreImplBase implements Persi
     return new SerializedItemDescriptor(version, false, jsonValue);
   }
   
-  static void batchWriteRequests(DynamoDbClient client, String tableName, List<WriteRequest> requests) {
-    int batchSize = 25;
-    for (int i = 0; i < requests.size(); i += batchSize) {
-      int limit = (i + batchSize < requests.size()) ? (i + batchSize) : requests.size();
-      List<WriteRequest> batch = requests.subList(i, limit); 
-      Map<String, List<WriteRequest>> batchMap = mapOf(tableName, batch);
-      client.batchWriteItem(builder -> builder.requestItems(batchMap));
+  private static String itemJson(Map<String, AttributeValue> item) {
+    AttributeValue jsonAttr = item.get(itemJsonAttribute);
+    AttributeValue encodingAttr = item.get(ItemCompression.ENCODING_ATTRIBUTE);
+    if (encodingAttr != null && encodingAttr.s() != null) {
+      return decodeJson(encodingAttr.s(), jsonAttr);
     }
+    if (jsonAttr == null || jsonAttr.s() == null) {
+      throw new IllegalStateException("DynamoDB map did not contain expected item string");
+    }
+    return jsonAttr.s();
   }
   
-  private boolean checkSizeLimit(Map<String, AttributeValue> item) {
+  private static String decodeJson(String encoding, AttributeValue data) {
+    if (!encoding.equals(ItemCompression.GZIP)) {
+      throw new IllegalStateException("DynamoDB item had unsupported encoding \"" + encoding + "\"");
+    }
+    if (data == null || data.b() == null) {
+      throw new IllegalStateException("DynamoDB map did not contain expected compressed item");
+    }
+    return ItemCompression.gunzip(data.b());
+  }
+  
+  static void batchWriteRequests(DynamoDbClient client, String tableName, List<WriteRequest> requests) {
+    BatchWriter writer = new BatchWriter(DynamoDbClientAdapter.of(client, false), tableName, FanOut.DIRECT, 1,
+        StoreMetrics.NONE, LDLogger.none());
+    join(writer.write(requests, Operation.INIT));
+  }
+  
+  static int itemSize(Map<String, AttributeValue> item) {
     // see: https://docs.aws.amazon.com/amazondynamodb/latest/developerguide/CapacityUnitCalculations.html
     int size = 100; // fixed overhead for index data
     for (Map.Entry<String, AttributeValue> kv: item.entrySet()) {
@@ -297,17 +1158,14 @@ final class DynamoDbDataStoreImpl extends DynamoDbStoreImplBase implements Persi
         size += utf8Length(kv.getValue().s());
       } else if (kv.getValue().n() != null) {
         size += utf8Length(kv.getValue().n());
+      } else if (kv.getValue().b() != null) {
+        size += kv.getValue().b().asByteBuffer().remaining();
       }
     }
-    if (size <= DYNAMO_DB_MAX_ITEM_SIZE) {
-      return true;
-    }
-    logger.error("The item \"{}\" in \"{}\" was too large to store in DynamoDB and was dropped",
-        item.get(SORT_KEY).s(), item.get(PARTITION_KEY).s());
-    return false;
+    return size;
   }
   
-  private static int utf8Length(String s) {
+  static int utf8Length(String s) {
     // Unfortunately Java (at least Java 8) doesn't have a built-in way to determine the UTF8 encoding
     // length without actually creating a new byte array, which we would rather not do. Guava does
     // support this, but we don't want a dependency on Guava (except in test code).
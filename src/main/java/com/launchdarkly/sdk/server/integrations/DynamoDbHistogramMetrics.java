@@ -0,0 +1,145 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An implementation of {@link DynamoDbStoreMetrics} that keeps latency and item size histograms, and
+ * running totals, for each operation in memory.
+ * <p>
+ * Recording never blocks: each event is a few atomic updates. You can read the current values at any
+ * time, for instance to export them periodically to your own monitoring system:
+ * <pre><code>
+ *     DynamoDbHistogramMetrics metrics = new DynamoDbHistogramMetrics();
+ *     DynamoDbStoreBuilder&lt;PersistentDataStore&gt; store = DynamoDb.dataStore("my-table").metrics(metrics);
+ *     // ...later:
+ *     Duration p99 = metrics.getLatencyPercentile(DynamoDbStoreMetrics.Operation.GET, 99);
+ * </code></pre>
+ * Percentiles are approximate, to within about 3%. Values accumulate for the lifetime of this object.
+ */
+public final class DynamoDbHistogramMetrics implements DynamoDbStoreMetrics {
+  private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+
+  /**
+   * Creates an instance with no recorded values.
+   */
+  public DynamoDbHistogramMetrics() {
+    for (Operation op: Operation.values()) {
+      stats.put(op, new OperationStats());
+    }
+  }
+
+  private static final class OperationStats {
+    final LockFreeHistogram latencyNanos = new LockFreeHistogram();
+    final LockFreeHistogram itemSizes = new LockFreeHistogram();
+    final LongAdder errors = new LongAdder();
+    final LongAdder throttles = new LongAdder();
+    final LongAdder replicaWriteFailures = new LongAdder();
+    final DoubleAdder capacity = new DoubleAdder();
+  }
+
+  @Override
+  public void operationCompleted(Operation operation, long durationNanos, boolean success) {
+    OperationStats s = stats.get(operation);
+    s.latencyNanos.record(durationNanos);
+    if (!success) {
+      s.errors.increment();
+    }
+  }
+
+  @Override
+  public void capacityConsumed(Operation operation, double capacityUnits) {
+    stats.get(operation).capacity.add(capacityUnits);
+  }
+
+  @Override
+  public void requestThrottled(Operation operation) {
+    stats.get(operation).throttles.increment();
+  }
+
+  @Override
+  public void replicaWriteFailed(Operation operation) {
+    stats.get(operation).replicaWriteFailures.increment();
+  }
+
+  @Override
+  public void itemWritten(Operation operation, int sizeBytes) {
+    stats.get(operation).itemSizes.record(sizeBytes);
+  }
+
+  /**
+   * Returns the number of times an operation has completed, successfully or not.
+   *
+   * @param operation the operation
+   * @return the number of operations
+   */
+  public long getCount(Operation operation) {
+    return stats.get(operation).latencyNanos.count();
+  }
+
+  /**
+   * Returns the number of times an operation has failed with an exception.
+   *
+   * @param operation the operation
+   * @return the number of failed operations
+   */
+  public long getErrorCount(Operation operation) {
+    return stats.get(operation).errors.sum();
+  }
+
+  /**
+   * Returns the approximate latency of an operation at the given percentile.
+   *
+   * @param operation the operation
+   * @param percentile a percentile from 0 to 100, such as 50 for the median or 99
+   * @return the latency, or {@link Duration#ZERO} if the operation has not been done
+   */
+  public Duration getLatencyPercentile(Operation operation, double percentile) {
+    return Duration.ofNanos(stats.get(operation).latencyNanos.percentile(percentile));
+  }
+
+  /**
+   * Returns the approximate size of the items written by an operation at the given percentile.
+   *
+   * @param operation the operation
+   * @param percentile a percentile from 0 to 100
+   * @return the size in bytes, or 0 if no items have been written
+   */
+  public long getItemSizePercentile(Operation operation, double percentile) {
+    return stats.get(operation).itemSizes.percentile(percentile);
+  }
+
+  /**
+   * Returns the total read or write capacity units that DynamoDB has reported for an operation.
+   *
+   * @param operation the operation
+   * @return the total capacity units
+   */
+  public double getConsumedCapacity(Operation operation) {
+    return stats.get(operation).capacity.sum();
+  }
+
+  /**
+   * Returns the number of times that requests for an operation were throttled and retried by the
+   * store.
+   *
+   * @param operation the operation
+   * @return the number of throttled requests
+   */
+  public long getThrottleCount(Operation operation) {
+    return stats.get(operation).throttles.sum();
+  }
+
+  /**
+   * Returns the number of times that an operation wrote a hot item but could not update its replicas.
+   *
+   * @param operation the operation
+   * @return the number of failed replica updates
+   */
+  public long getReplicaWriteFailureCount(Operation operation) {
+    return stats.get(operation).replicaWriteFailures.sum();
+  }
+}
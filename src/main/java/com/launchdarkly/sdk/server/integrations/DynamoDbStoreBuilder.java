@@ -9,10 +9,19 @@ import com.launchdarkly.sdk.server.subsystems.DiagnosticDescription;
 import com.launchdarkly.sdk.server.subsystems.PersistentDataStore;
 
 import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
 
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClientBuilder;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
 
@@ -64,19 +73,104 @@ import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
  * corresponding methods for some of the most commonly used ones. If you need more sophisticated
  * control over the DynamoDB client, you can construct one of your own and pass it in with the
  * {@link #existingClient(DynamoDbClient)} method.
+ * <p>
+ * The store can also use the asynchronous {@link DynamoDbAsyncClient}; see {@link #asyncClient(boolean)}.
  *
  * @since 2.1.0
  */
 public abstract class DynamoDbStoreBuilder<T> implements ComponentConfigurer<T>, DiagnosticDescription {
+  /**
+   * The default value for {@link #maxInFlightBatchWrites(int)}: batches are written one at a time.
+   */
+  public static final int DEFAULT_MAX_IN_FLIGHT_BATCH_WRITES = 1;
+
+  /**
+   * The default value for {@link #membershipCacheTime(Duration)}: 5 seconds.
+   */
+  public static final Duration DEFAULT_MEMBERSHIP_CACHE_TIME = Duration.ofSeconds(5);
+
   final String tableName;
   
   String prefix;
   DynamoDbClient existingClient;
   DynamoDbClientBuilder clientBuilder;
+  DynamoDbAsyncClient existingAsyncClient;
+  DynamoDbAsyncClientBuilder asyncClientBuilder;
+  boolean useAsyncClient;
+  Executor executor;
+  boolean virtualThreads;
+  int maxInFlightBatchWrites = DEFAULT_MAX_IN_FLIGHT_BATCH_WRITES;
+  boolean coalesceReads;
+  Duration readBatchingWindow;
+  Set<ReadOperation> eventuallyConsistentReads = EnumSet.noneOf(ReadOperation.class);
+  int itemCompressionThreshold = -1;
+  boolean chunkLargeItems;
+  boolean skipUnchangedItemsOnInit;
+  boolean parallelQueries;
+  boolean streamingGetAll;
+  int bulkLoadScanSegments;
+  Duration writeBehindWindow;
+  int membershipCacheSize;
+  Duration membershipCacheTime = DEFAULT_MEMBERSHIP_CACHE_TIME;
+  DynamoDbStoreMetrics metrics;
+  Duration initializedCacheTime;
+  int hotItemReplicas;
+  Set<String> hotItemKeys = Collections.emptySet();
+  HttpClientType httpClientType;
+  int maxConnections;
+  Duration connectionTimeout;
+  Duration socketTimeout;
+  Duration connectionTimeToLive;
+  Duration connectionMaxIdleTime;
+  Boolean useIdleConnectionReaper;
+
+  /**
+   * The kinds of read operations that can be configured with {@link DynamoDbStoreBuilder#eventuallyConsistentReads(ReadOperation...)}.
+   */
+  public enum ReadOperation {
+    /**
+     * Reading a single flag or segment ({@code PersistentDataStore.get}).
+     */
+    GET,
+    /**
+     * Reading all flags or all segments ({@code PersistentDataStore.getAll}).
+     */
+    GET_ALL,
+    /**
+     * Checking whether the data store has been initialized ({@code PersistentDataStore.isInitialized}).
+     */
+    IS_INITIALIZED,
+    /**
+     * Querying a user's Big Segment membership ({@code BigSegmentStore.getMembership}).
+     */
+    GET_MEMBERSHIP,
+    /**
+     * Reading the Big Segment store metadata ({@code BigSegmentStore.getMetadata}).
+     */
+    GET_METADATA
+  }
+
+  /**
+   * The HTTP implementations that can be selected with {@link DynamoDbStoreBuilder#httpClient(HttpClientType)}.
+   */
+  public enum HttpClientType {
+    /**
+     * The AWS SDK's Apache-based HTTP client, which keeps a pool of persistent connections. This is
+     * what the AWS SDK uses by default.
+     */
+    APACHE,
+    /**
+     * The AWS SDK's HTTP client based on {@code java.net.HttpURLConnection}. It has fewer dependencies
+     * and starts faster, but has fewer tuning options. It requires
+     * {@code software.amazon.awssdk:url-connection-client} to be on the classpath.
+     */
+    URL_CONNECTION
+  }
   
   private DynamoDbStoreBuilder(String tableName) {
     this.tableName = tableName;
     clientBuilder = DynamoDbClient.builder();
+    asyncClientBuilder = DynamoDbAsyncClient.builder();
   }
   
   /**
@@ -87,6 +181,7 @@ public abstract class DynamoDbStoreBuilder<T> implements ComponentConfigurer<T>,
    */
   public DynamoDbStoreBuilder<T> clientOverrideConfiguration(ClientOverrideConfiguration config) {
     clientBuilder.overrideConfiguration(config);
+    asyncClientBuilder.overrideConfiguration(config);
     return this;
   }
   
@@ -99,6 +194,7 @@ public abstract class DynamoDbStoreBuilder<T> implements ComponentConfigurer<T>,
    */
   public DynamoDbStoreBuilder<T> credentials(AwsCredentialsProvider credentialsProvider) {
     clientBuilder.credentialsProvider(credentialsProvider);
+    asyncClientBuilder.credentialsProvider(credentialsProvider);
     return this;
   }
   
@@ -112,6 +208,7 @@ public abstract class DynamoDbStoreBuilder<T> implements ComponentConfigurer<T>,
    */
   public DynamoDbStoreBuilder<T> endpoint(URI endpointUri) {
     clientBuilder.endpointOverride(endpointUri);
+    asyncClientBuilder.endpointOverride(endpointUri);
     return this;
   }
   
@@ -124,6 +221,108 @@ public abstract class DynamoDbStoreBuilder<T> implements ComponentConfigurer<T>,
    */
   public DynamoDbStoreBuilder<T> region(Region region) {
     clientBuilder.region(region);
+    asyncClientBuilder.region(region);
+    return this;
+  }
+
+  /**
+   * Selects the HTTP implementation for the synchronous DynamoDB client.
+   * <p>
+   * The default is null, meaning the AWS SDK's default, which is {@link HttpClientType#APACHE}. This
+   * option has no effect with {@link #asyncClient(boolean)}, which always uses the AWS SDK's
+   * Netty-based client, or with a client passed to {@link #existingClient(DynamoDbClient)}.
+   *
+   * @param httpClientType the HTTP implementation
+   * @return the builder
+   */
+  public DynamoDbStoreBuilder<T> httpClient(HttpClientType httpClientType) {
+    this.httpClientType = httpClientType;
+    return this;
+  }
+
+  /**
+   * Sets the maximum number of HTTP connections that the DynamoDB client keeps open at once. This
+   * limits how many requests the store can make concurrently, so you may want to raise it if you
+   * have enabled {@link #maxInFlightBatchWrites(int)} or {@link #bulkLoadScanSegments(int)}.
+   * <p>
+   * The default is 0, meaning the AWS SDK's default of 50. It has no effect with
+   * {@link HttpClientType#URL_CONNECTION}.
+   *
+   * @param maxConnections the maximum number of connections, or 0 for the AWS SDK's default
+   * @return the builder
+   */
+  public DynamoDbStoreBuilder<T> maxConnections(int maxConnections) {
+    this.maxConnections = Math.max(0, maxConnections);
+    return this;
+  }
+
+  /**
+   * Sets how long the DynamoDB client waits to establish a connection before giving up.
+   * <p>
+   * The default is null, meaning the AWS SDK's default of 2 seconds.
+   *
+   * @param connectionTimeout the connection timeout, or null
+   * @return the builder
+   */
+  public DynamoDbStoreBuilder<T> connectionTimeout(Duration connectionTimeout) {
+    this.connectionTimeout = connectionTimeout;
+    return this;
+  }
+
+  /**
+   * Sets how long the DynamoDB client waits for data on an open connection before giving up. With the
+   * asynchronous client, this is used as both the read and the write timeout.
+   * <p>
+   * The default is null, meaning the AWS SDK's default of 30 seconds.
+   *
+   * @param socketTimeout the socket timeout, or null
+   * @return the builder
+   */
+  public DynamoDbStoreBuilder<T> socketTimeout(Duration socketTimeout) {
+    this.socketTimeout = socketTimeout;
+    return this;
+  }
+
+  /**
+   * Sets the maximum time that a pooled HTTP connection is reused before it is closed, regardless of
+   * activity. A limited lifetime lets the client pick up changes in DynamoDB's DNS records sooner.
+   * <p>
+   * The default is null, meaning connections are kept indefinitely. This option only applies to the
+   * {@link HttpClientType#APACHE} client.
+   *
+   * @param connectionTimeToLive the maximum lifetime of a connection, or null
+   * @return the builder
+   */
+  public DynamoDbStoreBuilder<T> connectionTimeToLive(Duration connectionTimeToLive) {
+    this.connectionTimeToLive = connectionTimeToLive;
+    return this;
+  }
+
+  /**
+   * Sets how long a pooled HTTP connection can be idle before it is closed.
+   * <p>
+   * The default is null, meaning the AWS SDK's default of 60 seconds. This option has no effect with
+   * {@link HttpClientType#URL_CONNECTION}.
+   *
+   * @param connectionMaxIdleTime the maximum idle time, or null
+   * @return the builder
+   */
+  public DynamoDbStoreBuilder<T> connectionMaxIdleTime(Duration connectionMaxIdleTime) {
+    this.connectionMaxIdleTime = connectionMaxIdleTime;
+    return this;
+  }
+
+  /**
+   * Specifies whether a background thread should close idle pooled connections. If it is disabled,
+   * idle connections are only closed when the client next tries to use them.
+   * <p>
+   * The default is {@code true}. This option only applies to the {@link HttpClientType#APACHE} client.
+   *
+   * @param useIdleConnectionReaper true to close idle connections in the background
+   * @return the builder
+   */
+  public DynamoDbStoreBuilder<T> useIdleConnectionReaper(boolean useIdleConnectionReaper) {
+    this.useIdleConnectionReaper = useIdleConnectionReaper;
     return this;
   }
 
@@ -144,6 +343,10 @@ public abstract class DynamoDbStoreBuilder<T> implements ComponentConfigurer<T>,
    * Specifies an existing, already-configured DynamoDB client instance that the data store
    * should use rather than creating one of its own. If you specify an existing client, then the
    * other builder methods for configuring DynamoDB are ignored.
+   * <p>
+   * This cannot be combined with {@link #asyncClient(boolean)} or
+   * {@link #existingAsyncClient(DynamoDbAsyncClient)}; building the store then throws an
+   * {@link IllegalStateException}.
    *
    * @param existingClient an existing DynamoDB client instance
    * @return the builder
@@ -153,13 +356,376 @@ public abstract class DynamoDbStoreBuilder<T> implements ComponentConfigurer<T>,
     return this;
   }
 
+  /**
+   * Specifies whether the store should use the AWS SDK's asynchronous DynamoDB client,
+   * {@link DynamoDbAsyncClient}, rather than the synchronous {@link DynamoDbClient}. Operations that
+   * make many requests, such as initializing the store, can then have many requests in progress
+   * without a thread for each one. This requires the AWS SDK's Netty-based HTTP client.
+   * <p>
+   * The default is {@code false}. This cannot be combined with {@link #existingClient(DynamoDbClient)};
+   * building the store then throws an {@link IllegalStateException}. Use
+   * {@link #existingAsyncClient(DynamoDbAsyncClient)} to provide an asynchronous client.
+   *
+   * @param useAsyncClient true to use the asynchronous client
+   * @return the builder
+   */
+  public DynamoDbStoreBuilder<T> asyncClient(boolean useAsyncClient) {
+    this.useAsyncClient = useAsyncClient;
+    return this;
+  }
+
+  /**
+   * Specifies an existing, already-configured asynchronous DynamoDB client instance that the data
+   * store should use rather than creating one of its own. This implies {@link #asyncClient(boolean)}.
+   * If you specify an existing client, then the other builder methods for configuring DynamoDB are
+   * ignored.
+   * <p>
+   * This cannot be combined with {@link #existingClient(DynamoDbClient)}; building the store then
+   * throws an {@link IllegalStateException}.
+   *
+   * @param existingAsyncClient an existing asynchronous DynamoDB client instance
+   * @return the builder
+   */
+  public DynamoDbStoreBuilder<T> existingAsyncClient(DynamoDbAsyncClient existingAsyncClient) {
+    this.existingAsyncClient = existingAsyncClient;
+    return this;
+  }
+
+  /**
+   * Specifies an executor for the DynamoDB requests of operations that make several requests at
+   * once, such as {@link #maxInFlightBatchWrites(int)}, {@link #parallelQueries(boolean)}, or
+   * {@link #bulkLoadScanSegments(int)}. The store never shuts down an executor provided this way.
+   * <p>
+   * The default is null, meaning that the store creates a small pool of daemon threads when its
+   * other options need them. This option has no effect with {@link #asyncClient(boolean)}.
+   *
+   * @param executor the executor to use, or null
+   * @return the builder
+   */
+  public DynamoDbStoreBuilder<T> executor(Executor executor) {
+    this.executor = executor;
+    return this;
+  }
+
+  /**
+   * Specifies whether the store should start its concurrent requests on virtual threads, if the Java
+   * runtime supports them (Java 21 or later). On earlier versions the store uses its usual thread pool.
+   * <p>
+   * The default is {@code false}. This option has no effect if {@link #executor(Executor)} is set, or
+   * with {@link #asyncClient(boolean)}.
+   *
+   * @param virtualThreads true to use virtual threads when they are available
+   * @return the builder
+   */
+  public DynamoDbStoreBuilder<T> virtualThreads(boolean virtualThreads) {
+    this.virtualThreads = virtualThreads;
+    return this;
+  }
+
+  /**
+   * Sets the maximum number of {@code BatchWriteItem} requests that the data store can have in
+   * progress at once when it is writing a full data set. Higher values can make initializing a
+   * large environment much faster, but use more of the table's write capacity at once. The
+   * "$inited" marker is still written only after every other batch has succeeded.
+   * <p>
+   * The default is {@link #DEFAULT_MAX_IN_FLIGHT_BATCH_WRITES}. The Big Segment store itself does not
+   * write, but a {@link DynamoDbBigSegmentWriter} created from its builder sends up to this many
+   * updates at once if that is more than {@link DynamoDbBigSegmentWriter#DEFAULT_MAX_CONCURRENT_UPDATES}.
+   *
+   * @param maxInFlightBatchWrites the maximum number of concurrent batch writes; values less than 1
+   *   are treated as 1
+   * @return the builder
+   */
+  public DynamoDbStoreBuilder<T> maxInFlightBatchWrites(int maxInFlightBatchWrites) {
+    this.maxInFlightBatchWrites = Math.max(1, maxInFlightBatchWrites);
+    return this;
+  }
+
+  /**
+   * Specifies whether concurrent reads of the same item should share a single DynamoDB request. A
+   * read that starts after an update made by this store has completed never shares a request that
+   * was started before the update.
+   * <p>
+   * The default is {@code false}. This option has no effect on a Big Segment store.
+   *
+   * @param coalesceReads true to share concurrent requests for the same item
+   * @return the builder
+   */
+  public DynamoDbStoreBuilder<T> coalesceReads(boolean coalesceReads) {
+    this.coalesceReads = coalesceReads;
+    return this;
+  }
+
+  /**
+   * Enables combining point reads into {@code BatchGetItem} requests. Reads of single items, and Big
+   * Segment membership queries, that arrive within this time of each other are sent together, up to
+   * 100 keys at a time. This reduces the number of requests under load, but adds up to the window
+   * duration to the latency of each read.
+   * <p>
+   * The default is null, meaning that reads are not batched. A zero or negative value also disables
+   * batching.
+   *
+   * @param readBatchingWindow the maximum time to wait for other reads to batch with, or null
+   * @return the builder
+   */
+  public DynamoDbStoreBuilder<T> readBatchingWindow(Duration readBatchingWindow) {
+    this.readBatchingWindow = readBatchingWindow == null || readBatchingWindow.isZero() ||
+        readBatchingWindow.isNegative() ? null : readBatchingWindow;
+    return this;
+  }
+
+  /**
+   * Specifies which read operations can use eventually consistent reads, which use half as much read
+   * capacity but might not reflect a write made in the last second or so. For example:
+   * <pre><code>
+   *     DynamoDb.dataStore("table1").eventuallyConsistentReads(
+   *         ReadOperation.GET, ReadOperation.GET_ALL)
+   * </code></pre>
+   * <p>
+   * By default all reads are strongly consistent. Each call replaces the previous setting. Reads that
+   * the store does as part of its own writes are always strongly consistent.
+   *
+   * @param operations the operations that may use eventually consistent reads
+   * @return the builder
+   */
+  public DynamoDbStoreBuilder<T> eventuallyConsistentReads(ReadOperation... operations) {
+    eventuallyConsistentReads = EnumSet.noneOf(ReadOperation.class);
+    if (operations != null) {
+      for (ReadOperation op: operations) {
+        eventuallyConsistentReads.add(op);
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Enables gzip compression of any flag or segment whose JSON is at least this many bytes. This
+   * reduces the capacity used to read and write large items, and lets items that would otherwise
+   * exceed DynamoDB's 400KB limit be stored. Earlier versions of this library cannot read compressed
+   * items, so update every application that shares the table before enabling this.
+   * <p>
+   * The default is -1, meaning that items are never compressed. This option has no effect on a Big
+   * Segment store.
+   *
+   * @param minimumSizeBytes the minimum size of an item's JSON representation, in bytes, for it to be
+   *   compressed; or a negative number to disable compression
+   * @return the builder
+   */
+  public DynamoDbStoreBuilder<T> itemCompressionThreshold(int minimumSizeBytes) {
+    this.itemCompressionThreshold = minimumSizeBytes < 0 ? -1 : minimumSizeBytes;
+    return this;
+  }
+
+  /**
+   * Specifies whether flags and segments that are too large for a single DynamoDB item should be
+   * split into several items, rather than logged and left out. Earlier versions of this library
+   * cannot read chunked items, so update every application that shares the table before enabling this.
+   * <p>
+   * The default is {@code false}. This option has no effect on a Big Segment store.
+   *
+   * @param chunkLargeItems true to split items that are too large to store as a single item
+   * @return the builder
+   */
+  public DynamoDbStoreBuilder<T> chunkLargeItems(boolean chunkLargeItems) {
+    this.chunkLargeItems = chunkLargeItems;
+    return this;
+  }
+
+  /**
+   * Specifies whether initializing the data store should skip writing items whose stored version is
+   * the same as the new one. This can greatly reduce the write capacity used when the SDK reconnects
+   * and receives a full data set that has barely changed.
+   * <p>
+   * The default is {@code false}. This option has no effect on a Big Segment store.
+   *
+   * @param skipUnchangedItemsOnInit true to write only new or changed items during initialization
+   * @return the builder
+   */
+  public DynamoDbStoreBuilder<T> skipUnchangedItemsOnInit(boolean skipUnchangedItemsOnInit) {
+    this.skipUnchangedItemsOnInit = skipUnchangedItemsOnInit;
+    return this;
+  }
+
+  /**
+   * Specifies whether the data store should run its multi-page queries concurrently: the queries for
+   * different kinds of data during initialization run at the same time, and each query requests its
+   * next page while the current one is being decoded.
+   * <p>
+   * The default is {@code false}. This option has no effect on a Big Segment store.
+   *
+   * @param parallelQueries true to run queries concurrently
+   * @return the builder
+   */
+  public DynamoDbStoreBuilder<T> parallelQueries(boolean parallelQueries) {
+    this.parallelQueries = parallelQueries;
+    return this;
+  }
+
+  /**
+   * Specifies whether {@code getAll()} should return after reading the first page of results, and
+   * read the rest as the result is iterated, so that only about one page is held in memory at a time.
+   * An error while reading a later page is then thrown from the iterator.
+   * <p>
+   * The default is {@code false}. This option has no effect on a Big Segment store.
+   *
+   * @param streamingGetAll true to read the results of {@code getAll()} lazily
+   * @return the builder
+   */
+  public DynamoDbStoreBuilder<T> streamingGetAll(boolean streamingGetAll) {
+    this.streamingGetAll = streamingGetAll;
+    return this;
+  }
+
+  /**
+   * Specifies that the first {@code getAll()} should read all kinds of data at once with a parallel
+   * scan of the table, in this many segments, and keep the results briefly for the {@code getAll()}
+   * calls that follow. This can make a cold start much faster, but the scan reads every item in the
+   * table, including data that belongs to other prefixes.
+   * <p>
+   * The default is 0, meaning that the table is never scanned. This option has no effect on a Big
+   * Segment store.
+   *
+   * @param bulkLoadScanSegments the number of scan segments to read concurrently, or 0 to disable
+   *   bulk loading
+   * @return the builder
+   */
+  public DynamoDbStoreBuilder<T> bulkLoadScanSegments(int bulkLoadScanSegments) {
+    this.bulkLoadScanSegments = Math.max(0, bulkLoadScanSegments);
+    return this;
+  }
+
+  /**
+   * Specifies that the data store should hold updates in memory for up to this long, keeping only the
+   * newest version of each item, and then write them together. This store's reads see a buffered
+   * update immediately, but other processes do not see it until it is written.
+   * <p>
+   * Since the write happens later, an update is reported as successful unless a newer version of the
+   * same item is already buffered. A write that fails is logged and retried after the next window, and
+   * anything still buffered is written when the store is closed.
+   * <p>
+   * The default is null, meaning that updates are written immediately. A zero or negative value also
+   * disables buffering. This option has no effect on a Big Segment store.
+   *
+   * @param writeBehindWindow how long to hold updates before writing them
+   * @return the builder
+   */
+  public DynamoDbStoreBuilder<T> writeBehindWindow(Duration writeBehindWindow) {
+    this.writeBehindWindow = writeBehindWindow == null || writeBehindWindow.isZero() ||
+        writeBehindWindow.isNegative() ? null : writeBehindWindow;
+    return this;
+  }
+
+  /**
+   * Enables an in-memory cache of Big Segment memberships, and sets its maximum number of entries.
+   * Entries are kept for {@link #membershipCacheTime(Duration)}, and the whole cache is discarded
+   * whenever the store's metadata shows that the Big Segment data has been updated.
+   * <p>
+   * The default is 0, meaning there is no cache. This option has no effect on a persistent data store.
+   *
+   * @param membershipCacheSize the maximum number of users whose membership is cached, or 0 to
+   *   disable the cache
+   * @return the builder
+   */
+  public DynamoDbStoreBuilder<T> membershipCacheSize(int membershipCacheSize) {
+    this.membershipCacheSize = Math.max(0, membershipCacheSize);
+    return this;
+  }
+
+  /**
+   * Sets the maximum time that a Big Segment membership remains in the cache enabled by
+   * {@link #membershipCacheSize(int)}.
+   * <p>
+   * The default is {@link #DEFAULT_MEMBERSHIP_CACHE_TIME}. A null, zero, or negative value restores
+   * the default.
+   *
+   * @param membershipCacheTime the time to keep a cached membership
+   * @return the builder
+   */
+  public DynamoDbStoreBuilder<T> membershipCacheTime(Duration membershipCacheTime) {
+    this.membershipCacheTime = membershipCacheTime == null || membershipCacheTime.isZero() ||
+        membershipCacheTime.isNegative() ? DEFAULT_MEMBERSHIP_CACHE_TIME : membershipCacheTime;
+    return this;
+  }
+
+  /**
+   * Specifies an object that will receive metrics about the store's DynamoDB operations, such as
+   * latency, consumed capacity, and throttling. {@link DynamoDbHistogramMetrics} is a ready-made
+   * implementation.
+   * <p>
+   * The default is null, meaning that no metrics are collected.
+   *
+   * @param metrics the metrics recorder, or null
+   * @return the builder
+   */
+  public DynamoDbStoreBuilder<T> metrics(DynamoDbStoreMetrics metrics) {
+    this.metrics = metrics;
+    return this;
+  }
+
+  /**
+   * Specifies that the data store should remember for this long that it has been initialized, rather
+   * than reading the "$inited" marker on every call to {@code isInitialized()}. A failed operation
+   * clears the cached result, and checks of whether the store is available always make a request.
+   * <p>
+   * The default is null, meaning that the result is not cached. A zero or negative value also
+   * disables caching. This option has no effect on a Big Segment store.
+   *
+   * @param initializedCacheTime how long to remember that the store has been initialized
+   * @return the builder
+   */
+  public DynamoDbStoreBuilder<T> initializedCacheTime(Duration initializedCacheTime) {
+    this.initializedCacheTime = initializedCacheTime == null || initializedCacheTime.isZero() ||
+        initializedCacheTime.isNegative() ? null : initializedCacheTime;
+    return this;
+  }
+
+  /**
+   * Specifies that the data store should keep this many extra copies of the given flags or segments,
+   * and of the "$inited" marker, under different partition keys, and spread reads of them across the
+   * copies. This avoids throttling when a few items are read more often than one DynamoDB partition
+   * allows. Every process that writes to the same table and prefix must use the same settings. If a
+   * copy cannot be updated after the item itself was, the update still succeeds, and this store reads
+   * the original item until the copies are written again.
+   * <p>
+   * The default is 0, meaning that no copies are made. This option has no effect on a Big Segment
+   * store.
+   *
+   * @param replicas the number of copies to keep of each hot item, or 0 to disable this feature
+   * @param keys the keys of the flags or segments to copy
+   * @return the builder
+   */
+  public DynamoDbStoreBuilder<T> hotItemReplicas(int replicas, String... keys) {
+    this.hotItemReplicas = Math.max(0, replicas);
+    this.hotItemKeys = keys == null ? Collections.<String>emptySet() : new HashSet<>(Arrays.asList(keys));
+    return this;
+  }
+
   @Override
   public LDValue describeConfiguration(ClientContext context) {
     return LDValue.of("DynamoDB");
   }
   
-  DynamoDbClient makeClient() {
-    return existingClient != null ? existingClient : clientBuilder.build();
+  DynamoDbClientAdapter makeClient() {
+    if (existingClient != null && (useAsyncClient || existingAsyncClient != null)) {
+      throw new IllegalStateException("existingClient() cannot be used with asyncClient(true) or "
+          + "existingAsyncClient(); use existingAsyncClient() alone to provide an asynchronous client");
+    }
+    if (existingAsyncClient != null) {
+      return DynamoDbClientAdapter.of(existingAsyncClient, false);
+    }
+    if (useAsyncClient) {
+      if (HttpClients.isConfigured(this)) {
+        asyncClientBuilder.httpClientBuilder(HttpClients.asyncClientBuilder(this));
+      }
+      return DynamoDbClientAdapter.of(asyncClientBuilder.build(), true);
+    }
+    if (existingClient != null) {
+      return DynamoDbClientAdapter.of(existingClient, false);
+    }
+    if (HttpClients.isConfigured(this)) {
+      clientBuilder.httpClientBuilder(HttpClients.syncClientBuilder(this));
+    }
+    return DynamoDbClientAdapter.of(clientBuilder.build(), true);
   }
   
   final static class ForDataStore extends DynamoDbStoreBuilder<PersistentDataStore> {
@@ -169,8 +735,7 @@ public abstract class DynamoDbStoreBuilder<T> implements ComponentConfigurer<T>,
 
     @Override
     public PersistentDataStore build(ClientContext clientContext) {
-      return new DynamoDbDataStoreImpl(existingClient != null ? existingClient : clientBuilder.build(),
-          existingClient != null, tableName, prefix, clientContext.getBaseLogger());
+      return new DynamoDbDataStoreImpl(makeClient(), this, clientContext.getBaseLogger());
     }
   }
   
@@ -181,8 +746,7 @@ public abstract class DynamoDbStoreBuilder<T> implements ComponentConfigurer<T>,
 
     @Override
     public BigSegmentStore build(ClientContext clientContext) {
-      return new DynamoDbBigSegmentStoreImpl(existingClient != null ? existingClient : clientBuilder.build(),
-          existingClient != null, tableName, prefix, clientContext.getBaseLogger());
+      return new DynamoDbBigSegmentStoreImpl(makeClient(), this, clientContext.getBaseLogger());
     }
   }
 }
@@ -3,58 +3,206 @@ package com.launchdarkly.sdk.server.integrations;
 import static com.launchdarkly.sdk.server.integrations.CollectionHelpers.mapOf;
 
 import com.launchdarkly.logging.LDLogger;
+import com.launchdarkly.sdk.server.integrations.DynamoDbStoreBuilder.ReadOperation;
+import com.launchdarkly.sdk.server.integrations.DynamoDbStoreMetrics.Operation;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.EnumSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
 import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
 
 abstract class DynamoDbStoreImplBase implements Closeable {
   static final String PARTITION_KEY = "namespace";
   static final String SORT_KEY = "key";
 
-  protected final DynamoDbClient client;
-  protected final boolean wasExistingClient;
+  protected final DynamoDbClientAdapter client;
   protected final String tableName;
   protected final String prefix;
   protected final LDLogger logger;
+  protected final StoreMetrics metrics;
+  private final Set<ReadOperation> eventuallyConsistentReads;
+  // AttributeValues are immutable, so the one for each namespace is built only once. A store only uses
+  // a handful of namespaces.
+  private final Map<String, AttributeValue> namespaceValues = new ConcurrentHashMap<>();
+
+  // How many worker threads to use, with the synchronous client, if parallelQueries is enabled: enough
+  // for a query and a prefetched page for each of the two usual kinds of data.
+  private static final int PARALLEL_QUERY_WORKERS = 4;
+
+  // How long an idle thread is kept in a pool created with releaseIdleThreads; see makeOwnedExecutor().
+  private static final long IDLE_THREAD_TIMEOUT_SECONDS = 30;
+
+  // Used to start each request of a multi-request operation. With the asynchronous client, starting a
+  // request doesn't block, so this is just the calling thread; with the synchronous client it is the
+  // application's executor if there is one, or else a worker pool (or virtual threads) if concurrency
+  // was requested.
+  protected final Executor executor;
+  private final ExecutorService ownedExecutor;
+
+  // Non-null if point reads should be combined into BatchGetItem requests.
+  protected final ReadBatcher readBatcher;
 
   public DynamoDbStoreImplBase(
-    DynamoDbClient client,
-    boolean wasExistingClient,
-    String tableName,
-    String prefix,
+    DynamoDbClientAdapter client,
+    DynamoDbStoreBuilder<?> builder,
+    ReadOperation batchedReadOperation,
+    int subclassWorkers,
     LDLogger logger
     ) {
     this.client = client;
-    this.wasExistingClient = wasExistingClient;
-    this.tableName = tableName;
-    this.prefix = "".equals(prefix) ? null : prefix;
+    this.tableName = builder.tableName;
+    this.prefix = "".equals(builder.prefix) ? null : builder.prefix;
     this.logger = logger;
+    this.metrics = StoreMetrics.of(builder.metrics, logger);
+    this.eventuallyConsistentReads = EnumSet.noneOf(ReadOperation.class);
+    this.eventuallyConsistentReads.addAll(builder.eventuallyConsistentReads);
+    int workers = Math.max(Math.max(builder.maxInFlightBatchWrites, builder.bulkLoadScanSegments),
+        Math.max(builder.parallelQueries ? PARALLEL_QUERY_WORKERS : 1,
+            builder.writeBehindWindow != null ? UpsertBuffer.MAX_CONCURRENT_WRITES : 1));
+    workers = Math.max(workers, builder.readBatchingWindow != null ? ReadBatcher.MAX_CONCURRENT_BATCHES : 1);
+    workers = Math.max(workers, subclassWorkers);
+    ownedExecutor = makeOwnedExecutor(client, builder, workers, false, logger);
+    executor = selectExecutor(client, builder, ownedExecutor);
+    readBatcher = builder.readBatchingWindow == null ? null :
+      new ReadBatcher(client, tableName, this::namespaceValue, builder.readBatchingWindow.toMillis(),
+          isConsistent(batchedReadOperation), executor, metrics,
+          StoreMetrics.operationFor(batchedReadOperation), logger);
+  }
+
+  /**
+   * Creates the worker threads that are needed to have the given number of synchronous requests in
+   * progress at once, or returns null if none are needed: because there is only one worker, because
+   * the client is asynchronous, or because the application provided an executor. A fixed pool only
+   * starts its threads as tasks arrive, so workers for a feature that is never used cost nothing. If
+   * releaseIdleThreads is true, the threads also stop after they have been idle for a while, for work
+   * that only happens now and then.
+   */
+  static ExecutorService makeOwnedExecutor(DynamoDbClientAdapter client, DynamoDbStoreBuilder<?> builder,
+      int workers, boolean releaseIdleThreads, LDLogger logger) {
+    if (client.isAsync() || builder.executor != null || workers <= 1) {
+      return null;
+    }
+    ExecutorService virtualThreads = builder.virtualThreads ? VirtualThreads.newExecutor(logger) : null;
+    if (virtualThreads != null) {
+      return virtualThreads;
+    }
+    if (!releaseIdleThreads) {
+      return Executors.newFixedThreadPool(workers, new WorkerThreadFactory("LaunchDarkly-DynamoDb-Worker"));
+    }
+    ThreadPoolExecutor pool = new ThreadPoolExecutor(workers, workers, IDLE_THREAD_TIMEOUT_SECONDS, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(), new WorkerThreadFactory("LaunchDarkly-DynamoDb-Worker"));
+    pool.allowCoreThreadTimeOut(true);
+    return pool;
+  }
+
+  static Executor selectExecutor(DynamoDbClientAdapter client, DynamoDbStoreBuilder<?> builder,
+      ExecutorService ownedExecutor) {
+    if (ownedExecutor != null) {
+      return ownedExecutor;
+    }
+    return !client.isAsync() && builder.executor != null ? builder.executor : FanOut.DIRECT;
   }
 
   protected String prefixedNamespace(String base) {
     return prefix == null ? base : (prefix + ":" + base);
   }
 
+  protected AttributeValue namespaceValue(String namespace) {
+    AttributeValue value = namespaceValues.get(namespace);
+    if (value == null) {
+      value = AttributeValue.builder().s(namespace).build();
+      namespaceValues.putIfAbsent(namespace, value);
+    }
+    return value;
+  }
+
   protected Map<String, AttributeValue> makeKeysMap(String partitionKey, String sortKey) {
     return mapOf(
-        PARTITION_KEY, AttributeValue.builder().s(partitionKey).build(),
+        PARTITION_KEY, namespaceValue(partitionKey),
         SORT_KEY, AttributeValue.builder().s(sortKey).build());
   }
 
-  protected GetItemResponse getItemByKeys(String namespace, String key) {
-    return client.getItem(builder -> builder.tableName(tableName)
-        .consistentRead(true)
+  protected boolean isConsistent(ReadOperation operation) {
+    return !eventuallyConsistentReads.contains(operation);
+  }
+
+  protected CompletableFuture<GetItemResponse> getItemByKeys(String namespace, String key, ReadOperation operation) {
+    return getItemByKeys(namespace, key, isConsistent(operation), StoreMetrics.operationFor(operation));
+  }
+
+  protected CompletableFuture<GetItemResponse> getItemByKeys(String namespace, String key, boolean consistentRead,
+      Operation metricsOperation) {
+    return getItem(makeGetItemRequest(namespace, key, consistentRead), metricsOperation);
+  }
+
+  /**
+   * Builds a GetItem request, for a read that the subclass does often enough to build it in advance.
+   */
+  protected GetItemRequest makeGetItemRequest(String namespace, String key, boolean consistentRead) {
+    return GetItemRequest.builder().tableName(tableName)
+        .consistentRead(consistentRead)
         .key(makeKeysMap(namespace, key))
-    );
+        .returnConsumedCapacity(metrics.returnConsumedCapacity())
+        .build();
+  }
+
+  protected CompletableFuture<GetItemResponse> getItem(GetItemRequest request, Operation metricsOperation) {
+    return client.getItem(request).thenApply(resp -> {
+      metrics.capacityConsumed(metricsOperation, resp.consumedCapacity());
+      return resp;
+    });
+  }
+
+  /**
+   * Reads a single item for the subclass's batched read operation, through the read batcher if there
+   * is one. The future completes with null if there is no such item.
+   */
+  protected CompletableFuture<Map<String, AttributeValue>> getItemAttributes(
+      String namespace, String key, ReadOperation operation) {
+    if (readBatcher != null) {
+      return readBatcher.get(namespace, key);
+    }
+    return getItemByKeys(namespace, key, operation).thenApply(GetItemResponse::item);
   }
+
   public void close() throws IOException {
-    if (!wasExistingClient) {
-      client.close();
+    if (readBatcher != null) {
+      readBatcher.close();
+    }
+    if (ownedExecutor != null) {
+      ownedExecutor.shutdown();
+    }
+    client.close();
+  }
+
+  private static final class WorkerThreadFactory implements ThreadFactory {
+    private final String namePrefix;
+    private final AtomicInteger count = new AtomicInteger();
+
+    WorkerThreadFactory(String namePrefix) {
+      this.namePrefix = namePrefix;
+    }
+
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread t = new Thread(r, namePrefix + "-" + count.incrementAndGet());
+      t.setDaemon(true);
+      return t;
     }
   }
 }
@@ -0,0 +1,104 @@
+package com.launchdarkly.sdk.server.integrations;
+
+/**
+ * An interface for receiving performance information from the DynamoDB data store or Big Segment
+ * store.
+ * <p>
+ * Set an implementation with {@link DynamoDbStoreBuilder#metrics(DynamoDbStoreMetrics)}. Every method
+ * has a default implementation that does nothing, so an implementation only needs to override the
+ * ones it is interested in. {@link DynamoDbHistogramMetrics} is a ready-made implementation that
+ * keeps latency percentiles and totals in memory.
+ * <p>
+ * The methods are called synchronously from the threads that perform or complete the store's work,
+ * possibly concurrently, so they must be thread-safe and should return quickly. An exception thrown
+ * by one of them is logged and otherwise ignored.
+ */
+public interface DynamoDbStoreMetrics {
+  /**
+   * The store operations that metrics are reported for.
+   */
+  enum Operation {
+    /**
+     * Reading a single flag or segment ({@code PersistentDataStore.get}).
+     */
+    GET,
+    /**
+     * Reading all flags or all segments ({@code PersistentDataStore.getAll}).
+     */
+    GET_ALL,
+    /**
+     * Replacing the contents of the data store ({@code PersistentDataStore.init}).
+     */
+    INIT,
+    /**
+     * Updating or deleting a single flag or segment ({@code PersistentDataStore.upsert}).
+     */
+    UPSERT,
+    /**
+     * Checking whether the data store has been initialized ({@code PersistentDataStore.isInitialized}).
+     */
+    IS_INITIALIZED,
+    /**
+     * Querying a user's Big Segment membership ({@code BigSegmentStore.getMembership}).
+     */
+    GET_MEMBERSHIP,
+    /**
+     * Reading the Big Segment store metadata ({@code BigSegmentStore.getMetadata}).
+     */
+    GET_METADATA,
+    /**
+     * Writing Big Segment membership changes with {@link DynamoDbBigSegmentWriter}.
+     */
+    UPDATE_MEMBERSHIPS
+  }
+
+  /**
+   * Called when a store operation has finished.
+   * <p>
+   * An operation that DynamoDB rejected as a matter of course, such as an {@code upsert} of an item
+   * that is older than the stored one, is still successful.
+   *
+   * @param operation the operation
+   * @param durationNanos how long the operation took, in nanoseconds
+   * @param success true if the operation completed normally, false if it threw an exception
+   */
+  default void operationCompleted(Operation operation, long durationNanos, boolean success) {}
+
+  /**
+   * Called with the read or write capacity that DynamoDB reported for a request made on behalf of an
+   * operation. One operation can make several requests. If point reads are batched (see
+   * {@link DynamoDbStoreBuilder#readBatchingWindow(java.time.Duration)}), the capacity of each batch
+   * is reported once, for the operation that the batch serves.
+   *
+   * @param operation the operation
+   * @param capacityUnits the number of read or write capacity units consumed
+   */
+  default void capacityConsumed(Operation operation, double capacityUnits) {}
+
+  /**
+   * Called when DynamoDB did not complete some of the work of a request because the table was out
+   * of capacity, and the store is going to retry it after a delay. This is in addition to any retries
+   * that the AWS SDK does internally.
+   *
+   * @param operation the operation
+   */
+  default void requestThrottled(Operation operation) {}
+
+  /**
+   * Called with the size of each item that is written, as it counts toward DynamoDB's 400KB limit.
+   *
+   * @param operation the operation
+   * @param sizeBytes the size of the item in bytes
+   */
+  default void itemWritten(Operation operation, int sizeBytes) {}
+
+  /**
+   * Called when the store could not update a replica of a hot item (see
+   * {@link DynamoDbStoreBuilder#hotItemReplicas(int, String...)}), even though the item itself was
+   * written. The operation still succeeds; until the replicas are written again, this store reads the
+   * original item instead.
+   *
+   * @param operation the operation
+   */
+  default void replicaWriteFailed(Operation operation) {}
+}
@@ -0,0 +1,130 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Runs a list of asynchronous tasks with a bounded number in progress at once.
+ * <p>
+ * Each task is started on the given executor. With the synchronous DynamoDB client that should be a
+ * thread pool, since a task occupies its thread until the request finishes; with the asynchronous
+ * client it can be {@link #DIRECT}, since starting a task only sends the request. If any task fails,
+ * no further tasks are started, and the result fails with the first error once the tasks that were
+ * already running have finished.
+ * <p>
+ * Tasks are started from a loop rather than from each other's completion callbacks, so that a long
+ * list of tasks that complete synchronously does not build up a deep call stack.
+ */
+final class FanOut<T> {
+  /**
+   * An executor that runs tasks on the calling thread.
+   */
+  static final Executor DIRECT = Runnable::run;
+
+  private final List<Supplier<CompletableFuture<T>>> tasks;
+  private final CongestionWindow window;
+  private final Executor executor;
+  private final List<T> results;
+  private final CompletableFuture<List<T>> done = new CompletableFuture<>();
+
+  private int nextTask;
+  private int outstanding;
+  private Throwable failure;
+  private boolean pumping;
+  private boolean repump;
+
+  private FanOut(List<Supplier<CompletableFuture<T>>> tasks, CongestionWindow window, Executor executor) {
+    this.tasks = tasks;
+    this.window = window;
+    this.executor = executor;
+    this.results = new ArrayList<>(Collections.<T>nCopies(tasks.size(), null));
+  }
+
+  /**
+   * Starts the tasks and returns a future for all of their results, in the same order as the tasks.
+   */
+  static <T> CompletableFuture<List<T>> run(
+      List<Supplier<CompletableFuture<T>>> tasks,
+      CongestionWindow window,
+      Executor executor
+      ) {
+    FanOut<T> f = new FanOut<>(tasks, window, executor);
+    f.pump();
+    return f.done;
+  }
+
+  private void pump() {
+    synchronized (this) {
+      if (pumping) {
+        repump = true;
+        return;
+      }
+      pumping = true;
+    }
+    while (true) {
+      int index;
+      boolean finished = false;
+      synchronized (this) {
+        if (failure == null && nextTask < tasks.size() && window.tryAcquire(this::pump)) {
+          index = nextTask++;
+          outstanding++;
+        } else if (repump) {
+          repump = false;
+          continue;
+        } else {
+          pumping = false;
+          index = -1;
+          finished = outstanding == 0 && (failure != null || nextTask >= tasks.size());
+        }
+      }
+      if (index < 0) {
+        if (finished) {
+          finish();
+        }
+        return;
+      }
+      start(index);
+    }
+  }
+
+  private void start(int index) {
+    CompletableFuture<T> result;
+    try {
+      result = CompletableFuture.supplyAsync(tasks.get(index), executor).thenCompose(f -> f);
+    } catch (RuntimeException e) { // executor rejected the task
+      result = DynamoDbClientAdapter.failedFuture(e);
+    }
+    result.whenComplete((value, error) -> {
+      synchronized (this) {
+        outstanding--;
+        if (error != null) {
+          if (failure == null) {
+            failure = error;
+          }
+        } else {
+          results.set(index, value);
+        }
+      }
+      window.release();
+      pump();
+    });
+  }
+
+  private void finish() {
+    // This can be reached more than once if a stale window callback arrives after we're done, but
+    // completing a future that's already complete has no effect.
+    Throwable error;
+    synchronized (this) {
+      error = failure;
+    }
+    if (error != null) {
+      done.completeExceptionally(error);
+    } else {
+      done.complete(results);
+    }
+  }
+}
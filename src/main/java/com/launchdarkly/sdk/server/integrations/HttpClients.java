@@ -0,0 +1,96 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import com.launchdarkly.sdk.server.integrations.DynamoDbStoreBuilder.HttpClientType;
+
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+
+/**
+ * Creates HTTP client builders from the HTTP options of a {@link DynamoDbStoreBuilder}.
+ * <p>
+ * The HTTP implementation classes are only loaded if an application has set one of these options,
+ * and then only the one that is used.
+ */
+final class HttpClients {
+  private HttpClients() {}
+
+  static boolean isConfigured(DynamoDbStoreBuilder<?> b) {
+    return b.httpClientType != null || b.maxConnections > 0 || b.connectionTimeout != null ||
+        b.socketTimeout != null || b.connectionTimeToLive != null || b.connectionMaxIdleTime != null ||
+        b.useIdleConnectionReaper != null;
+  }
+
+  static SdkHttpClient.Builder<?> syncClientBuilder(DynamoDbStoreBuilder<?> b) {
+    if (b.httpClientType == HttpClientType.URL_CONNECTION) {
+      return UrlConnection.clientBuilder(b);
+    }
+    return Apache.clientBuilder(b);
+  }
+
+  static SdkAsyncHttpClient.Builder<?> asyncClientBuilder(DynamoDbStoreBuilder<?> b) {
+    return Netty.clientBuilder(b);
+  }
+
+  // Each HTTP implementation is only referenced from its own class, since an application can leave
+  // out the ones it doesn't use.
+  private static final class Apache {
+    static SdkHttpClient.Builder<?> clientBuilder(DynamoDbStoreBuilder<?> b) {
+      ApacheHttpClient.Builder builder = ApacheHttpClient.builder();
+      if (b.maxConnections > 0) {
+        builder.maxConnections(b.maxConnections);
+      }
+      if (b.connectionTimeout != null) {
+        builder.connectionTimeout(b.connectionTimeout);
+      }
+      if (b.socketTimeout != null) {
+        builder.socketTimeout(b.socketTimeout);
+      }
+      if (b.connectionTimeToLive != null) {
+        builder.connectionTimeToLive(b.connectionTimeToLive);
+      }
+      if (b.connectionMaxIdleTime != null) {
+        builder.connectionMaxIdleTime(b.connectionMaxIdleTime);
+      }
+      if (b.useIdleConnectionReaper != null) {
+        builder.useIdleConnectionReaper(b.useIdleConnectionReaper);
+      }
+      return builder;
+    }
+  }
+
+  private static final class Netty {
+    static SdkAsyncHttpClient.Builder<?> clientBuilder(DynamoDbStoreBuilder<?> b) {
+      NettyNioAsyncHttpClient.Builder builder = NettyNioAsyncHttpClient.builder();
+      if (b.maxConnections > 0) {
+        builder.maxConcurrency(b.maxConnections);
+      }
+      if (b.connectionTimeout != null) {
+        builder.connectionTimeout(b.connectionTimeout);
+      }
+      if (b.socketTimeout != null) {
+        builder.readTimeout(b.socketTimeout);
+        builder.writeTimeout(b.socketTimeout);
+      }
+      if (b.connectionMaxIdleTime != null) {
+        builder.connectionMaxIdleTime(b.connectionMaxIdleTime);
+      }
+      return builder;
+    }
+  }
+
+  private static final class UrlConnection {
+    static SdkHttpClient.Builder<?> clientBuilder(DynamoDbStoreBuilder<?> b) {
+      UrlConnectionHttpClient.Builder builder = UrlConnectionHttpClient.builder();
+      if (b.connectionTimeout != null) {
+        builder.connectionTimeout(b.connectionTimeout);
+      }
+      if (b.socketTimeout != null) {
+        builder.socketTimeout(b.socketTimeout);
+      }
+      return builder;
+    }
+  }
+}
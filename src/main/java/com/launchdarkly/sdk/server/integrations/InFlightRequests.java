@@ -0,0 +1,52 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent requests for the same key into a single request ("single-flight").
+ * <p>
+ * The first caller for a key starts the request; any other caller that arrives while it is still in
+ * progress gets the same future. The entry is removed as soon as the request completes, so this is not
+ * a cache: a caller that arrives after completion always starts a new request.
+ */
+final class InFlightRequests<K, V> {
+  private final ConcurrentHashMap<K, CompletableFuture<V>> requests = new ConcurrentHashMap<>();
+
+  CompletableFuture<V> get(K key, Supplier<CompletableFuture<V>> loader) {
+    CompletableFuture<V> mine = new CompletableFuture<>();
+    CompletableFuture<V> existing = requests.putIfAbsent(key, mine);
+    if (existing != null) {
+      return existing;
+    }
+    CompletableFuture<V> result;
+    try {
+      result = loader.get();
+    } catch (RuntimeException e) {
+      result = DynamoDbClientAdapter.failedFuture(e);
+    }
+    result.whenComplete((value, error) -> {
+      requests.remove(key, mine);
+      if (error != null) {
+        mine.completeExceptionally(error);
+      } else {
+        mine.complete(value);
+      }
+    });
+    return mine;
+  }
+
+  /**
+   * Stops later callers from joining a request for this key that is already in progress. This is used
+   * when the underlying data is being changed, since a request that started earlier might not see the
+   * change.
+   */
+  void invalidate(K key) {
+    requests.remove(key);
+  }
+
+  void invalidateAll() {
+    requests.clear();
+  }
+}
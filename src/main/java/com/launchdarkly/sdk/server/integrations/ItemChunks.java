@@ -0,0 +1,202 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import static com.launchdarkly.sdk.server.integrations.CollectionHelpers.mapOf;
+import static com.launchdarkly.sdk.server.integrations.DynamoDbStoreImplBase.PARTITION_KEY;
+import static com.launchdarkly.sdk.server.integrations.DynamoDbStoreImplBase.SORT_KEY;
+
+import com.launchdarkly.sdk.server.integrations.DynamoDbStoreMetrics.Operation;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+
+/**
+ * Storage of items that are too large for a single DynamoDB item.
+ * <p>
+ * The serialized data of a large item (after compression, if that is enabled) is split into chunks,
+ * each stored as its own DynamoDB item in a separate partition whose namespace is the item's namespace
+ * plus {@link #NAMESPACE_SUFFIX}, so that queries for the item's own namespace never return them. The
+ * item itself is then stored as a "manifest": the usual key and version attributes, plus the number
+ * of chunks and a randomly generated chunk set ID that is part of each chunk's sort key.
+ * <p>
+ * A chunk is never modified after it has been written. A writer stores all of the chunks of a new
+ * chunk set before it stores the manifest that refers to them, and deletes the chunks of the previous
+ * manifest only after replacing it; so a reader that has a manifest either finds every one of its
+ * chunks, or finds that some are missing because the manifest has since been replaced, in which case
+ * it reads the manifest again. It can never combine chunks from two different versions.
+ * <p>
+ * All of the chunks of an item are read with a single {@code BatchGetItem} request, so DynamoDB
+ * fetches them in parallel.
+ */
+final class ItemChunks {
+  static final String NAMESPACE_SUFFIX = "$chunks";
+  static final String CHUNK_COUNT_ATTRIBUTE = "chunks";
+  static final String CHUNK_SET_ATTRIBUTE = "chunkSet";
+  static final String CHUNK_DATA_ATTRIBUTE = "chunk";
+
+  // Leaves plenty of room under the 400KB item limit for the keys and other overhead.
+  static final int CHUNK_SIZE = 350000;
+
+  // BatchGetItem's limit, so that every chunk can be requested at once.
+  static final int MAX_CHUNKS = 100;
+
+  private ItemChunks() {}
+
+  static boolean isManifest(Map<String, AttributeValue> item) {
+    return item != null && item.containsKey(CHUNK_COUNT_ATTRIBUTE);
+  }
+
+  static String newChunkSetId() {
+    return Long.toHexString(ThreadLocalRandom.current().nextLong());
+  }
+
+  static String chunkKey(String key, String chunkSetId, int index) {
+    return key + "#" + chunkSetId + "#" + index;
+  }
+
+  /**
+   * Returns the sort keys of the chunks that a manifest refers to, or an empty list if the item is not
+   * a manifest.
+   */
+  static List<String> chunkKeys(String key, Map<String, AttributeValue> manifest) {
+    List<String> keys = new ArrayList<>();
+    if (!isManifest(manifest)) {
+      return keys;
+    }
+    AttributeValue countAttr = manifest.get(CHUNK_COUNT_ATTRIBUTE);
+    AttributeValue setAttr = manifest.get(CHUNK_SET_ATTRIBUTE);
+    if (countAttr.n() == null || setAttr == null || setAttr.s() == null) {
+      throw new IllegalStateException("DynamoDB item had an invalid chunk manifest");
+    }
+    int count;
+    try {
+      count = Integer.parseInt(countAttr.n());
+    } catch (NumberFormatException e) {
+      throw new IllegalStateException("DynamoDB chunk count attribute had a non-numeric value");
+    }
+    for (int i = 0; i < count; i++) {
+      keys.add(chunkKey(key, setAttr.s(), i));
+    }
+    return keys;
+  }
+
+  /**
+   * Splits data into chunks, or returns null if it would take more than {@link #MAX_CHUNKS}.
+   */
+  static List<SdkBytes> split(byte[] data) {
+    int count = (data.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    if (count > MAX_CHUNKS) {
+      return null;
+    }
+    List<SdkBytes> chunks = new ArrayList<>(count);
+    for (int offset = 0; offset < data.length; offset += CHUNK_SIZE) {
+      int length = Math.min(CHUNK_SIZE, data.length - offset);
+      byte[] chunk = new byte[length];
+      System.arraycopy(data, offset, chunk, 0, length);
+      chunks.add(SdkBytes.fromByteArrayUnsafe(chunk));
+    }
+    return chunks;
+  }
+
+  /**
+   * Reads all of the chunks that a manifest refers to. The future completes with the reassembled data,
+   * or with null if any of the chunks no longer exists.
+   */
+  static CompletableFuture<byte[]> read(
+      DynamoDbClientAdapter client,
+      String tableName,
+      AttributeValue chunkNamespace,
+      String key,
+      Map<String, AttributeValue> manifest,
+      StoreMetrics metrics,
+      Operation operation
+      ) {
+    List<String> keys = chunkKeys(key, manifest);
+    Map<String, Integer> indexes = new HashMap<>();
+    for (int i = 0; i < keys.size(); i++) {
+      indexes.put(keys.get(i), i);
+    }
+    SdkBytes[] chunks = new SdkBytes[keys.size()];
+    return readChunks(client, tableName, chunkNamespace, keys, indexes, chunks, metrics, operation, 1).thenApply(v -> {
+      int length = 0;
+      for (SdkBytes chunk: chunks) {
+        if (chunk == null) {
+          return null;
+        }
+        length += chunk.asByteBuffer().remaining();
+      }
+      byte[] data = new byte[length];
+      int offset = 0;
+      for (SdkBytes chunk: chunks) {
+        ByteBuffer b = chunk.asByteBuffer();
+        int n = b.remaining();
+        b.get(data, offset, n);
+        offset += n;
+      }
+      return data;
+    });
+  }
+
+  private static CompletableFuture<Void> readChunks(
+      DynamoDbClientAdapter client,
+      String tableName,
+      AttributeValue chunkNamespace,
+      List<String> keys,
+      Map<String, Integer> indexes,
+      SdkBytes[] chunks,
+      StoreMetrics metrics,
+      Operation operation,
+      int attempt
+      ) {
+    List<Map<String, AttributeValue>> keyMaps = new ArrayList<>(keys.size());
+    for (String k: keys) {
+      keyMaps.add(mapOf(
+          PARTITION_KEY, chunkNamespace,
+          SORT_KEY, AttributeValue.builder().s(k).build()));
+    }
+    // Always strongly consistent: the chunks were written just before the manifest that we've read,
+    // and an eventually consistent read might not see them yet.
+    BatchGetItemRequest request = BatchGetItemRequest.builder()
+        .requestItems(mapOf(tableName, KeysAndAttributes.builder().keys(keyMaps).consistentRead(true).build()))
+        .returnConsumedCapacity(metrics.returnConsumedCapacity())
+        .build();
+    return client.batchGetItem(request).thenCompose(resp -> {
+      metrics.capacityConsumed(operation, resp.consumedCapacity());
+      List<Map<String, AttributeValue>> items = resp.responses() == null ? null : resp.responses().get(tableName);
+      if (items != null) {
+        for (Map<String, AttributeValue> item: items) {
+          Integer index = indexes.get(item.get(SORT_KEY).s());
+          AttributeValue data = item.get(CHUNK_DATA_ATTRIBUTE);
+          if (index != null && data != null && data.b() != null) {
+            chunks[index] = data.b();
+          }
+        }
+      }
+      KeysAndAttributes unprocessed = resp.unprocessedKeys() == null ? null : resp.unprocessedKeys().get(tableName);
+      if (unprocessed == null || unprocessed.keys() == null || unprocessed.keys().isEmpty()) {
+        return CompletableFuture.completedFuture(null);
+      }
+      if (attempt >= Backoff.MAX_ATTEMPTS) {
+        throw new RuntimeException(String.format(
+            "DynamoDB did not return %d chunks in table %s after %d attempts", unprocessed.keys().size(),
+            tableName, attempt));
+      }
+      metrics.requestThrottled(operation);
+      List<String> retry = new ArrayList<>();
+      for (Map<String, AttributeValue> k: unprocessed.keys()) {
+        retry.add(k.get(SORT_KEY).s());
+      }
+      return client.delay(Backoff.delayMillis(attempt)).thenCompose(v ->
+          readChunks(client, tableName, chunkNamespace, retry, indexes, chunks, metrics, operation, attempt + 1));
+    });
+  }
+}
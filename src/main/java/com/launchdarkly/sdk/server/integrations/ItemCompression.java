@@ -0,0 +1,48 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import software.amazon.awssdk.core.SdkBytes;
+
+/**
+ * Gzip encoding for the serialized JSON of a stored item.
+ * <p>
+ * An item stored this way has its "item" attribute as binary rather than a string, and an additional
+ * "encoding" attribute whose value is {@link #GZIP}. Readers look at the marker rather than at the
+ * configuration, so a store can read items written with or without compression.
+ */
+final class ItemCompression {
+  static final String ENCODING_ATTRIBUTE = "encoding";
+  static final String GZIP = "gzip";
+
+  private ItemCompression() {}
+
+  static SdkBytes gzip(String json) {
+    ByteArrayOutputStream buf = new ByteArrayOutputStream(json.length() / 4 + 64);
+    try (GZIPOutputStream out = new GZIPOutputStream(buf)) {
+      out.write(json.getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      throw new RuntimeException(e); // can't happen with an in-memory stream
+    }
+    return SdkBytes.fromByteArrayUnsafe(buf.toByteArray());
+  }
+
+  static String gunzip(SdkBytes data) {
+    ByteArrayOutputStream buf = new ByteArrayOutputStream(data.asByteBuffer().remaining() * 4);
+    try (InputStream in = new GZIPInputStream(data.asInputStream())) {
+      byte[] chunk = new byte[8192];
+      int n;
+      while ((n = in.read(chunk)) > 0) {
+        buf.write(chunk, 0, n);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("DynamoDB item could not be decompressed", e);
+    }
+    return new String(buf.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
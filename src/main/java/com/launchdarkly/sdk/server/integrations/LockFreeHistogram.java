@@ -0,0 +1,70 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of non-negative long values that can be updated concurrently without locking.
+ * <p>
+ * Values are counted in log-linear buckets: exact for values below 16, and otherwise 16 buckets for
+ * each power of two, so a reported percentile is within about 3% of a value that was actually
+ * recorded. Recording a value is a single atomic increment; reading a percentile scans the buckets,
+ * and is not a consistent snapshot if values are being recorded at the same time.
+ */
+final class LockFreeHistogram {
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKET_COUNT = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS; // values are at most 2^63-1
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+  void record(long value) {
+    counts.incrementAndGet(bucketFor(Math.max(0, value)));
+  }
+
+  long count() {
+    long total = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      total += counts.get(i);
+    }
+    return total;
+  }
+
+  /**
+   * Returns the value at the given percentile (between 0 and 100), or 0 if nothing has been recorded.
+   */
+  long percentile(double percentile) {
+    long total = count();
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long)Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100));
+    long seen = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += counts.get(i);
+      if (seen >= rank) {
+        return valueFor(i);
+      }
+    }
+    return valueFor(BUCKET_COUNT - 1); // only if values were recorded while we were counting
+  }
+
+  static int bucketFor(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int)value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int shift = exponent - SUB_BUCKET_BITS;
+    int subBucket = (int)(value >>> shift) - SUB_BUCKETS;
+    return (shift + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  // Returns the midpoint of the bucket's range.
+  static long valueFor(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = bucket / SUB_BUCKETS - 1;
+    long lower = (long)(SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    return lower + ((1L << shift) >>> 1);
+  }
+}
@@ -0,0 +1,102 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import static com.launchdarkly.sdk.server.integrations.DynamoDbClientAdapter.join;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+
+/**
+ * The results of a paginated query, decoded one item at a time as they are iterated.
+ * <p>
+ * Only the page being iterated (and, if prefetching, the next one) is held in memory. The first page
+ * is normally requested before this object is created, so that a failure of the query can be reported
+ * right away; the first iterator uses that page, and any later iterator repeats the query from the
+ * beginning. A failure while requesting a later page is thrown from {@code hasNext()}. Items that
+ * the decoder returns null for are skipped.
+ */
+final class PagedItems<T> implements Iterable<T> {
+  private final QueryRequest request;
+  private final Function<QueryRequest, CompletableFuture<QueryResponse>> query;
+  private final boolean prefetch;
+  private final Function<Map<String, AttributeValue>, T> decoder;
+  private CompletableFuture<QueryResponse> firstPage;
+
+  PagedItems(
+      QueryRequest request,
+      CompletableFuture<QueryResponse> firstPage,
+      Function<QueryRequest, CompletableFuture<QueryResponse>> query,
+      boolean prefetch,
+      Function<Map<String, AttributeValue>, T> decoder
+      ) {
+    this.request = request;
+    this.firstPage = firstPage;
+    this.query = query;
+    this.prefetch = prefetch;
+    this.decoder = decoder;
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    CompletableFuture<QueryResponse> page;
+    synchronized (this) {
+      page = firstPage;
+      firstPage = null;
+    }
+    return new PageIterator(page == null ? query.apply(request) : page);
+  }
+
+  private final class PageIterator implements Iterator<T> {
+    private Iterator<Map<String, AttributeValue>> items;
+    private QueryResponse currentPage;
+    private CompletableFuture<QueryResponse> nextPage;
+    private T nextItem;
+
+    PageIterator(CompletableFuture<QueryResponse> firstPage) {
+      this.nextPage = firstPage;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (nextItem == null) {
+        if (items != null && items.hasNext()) {
+          nextItem = decoder.apply(items.next());
+        } else if (nextPage != null) {
+          currentPage = join(nextPage);
+          items = currentPage.items().iterator();
+          nextPage = isLastPage(currentPage) ? null : requestAfter(currentPage, prefetch);
+        } else if (currentPage != null && !isLastPage(currentPage)) {
+          nextPage = requestAfter(currentPage, true);
+        } else {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      T item = nextItem;
+      nextItem = null;
+      return item;
+    }
+
+    // Without prefetching, the next page isn't requested until the current one has been used up.
+    private CompletableFuture<QueryResponse> requestAfter(QueryResponse page, boolean now) {
+      return now ? query.apply(request.toBuilder().exclusiveStartKey(page.lastEvaluatedKey()).build()) : null;
+    }
+  }
+
+  static boolean isLastPage(QueryResponse resp) {
+    return resp.lastEvaluatedKey() == null || resp.lastEvaluatedKey().isEmpty();
+  }
+}
@@ -0,0 +1,236 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import static com.launchdarkly.sdk.server.integrations.CollectionHelpers.mapOf;
+import static com.launchdarkly.sdk.server.integrations.DynamoDbStoreImplBase.PARTITION_KEY;
+import static com.launchdarkly.sdk.server.integrations.DynamoDbStoreImplBase.SORT_KEY;
+
+import com.launchdarkly.logging.LDLogger;
+import com.launchdarkly.sdk.server.integrations.DynamoDbStoreMetrics.Operation;
+
+import java.io.Closeable;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+
+/**
+ * Collects point reads that arrive within a short window and sends them as a single
+ * {@code BatchGetItem} request.
+ * <p>
+ * The first read to arrive after a batch has been sent starts a timer; everything that arrives before
+ * the timer fires, or until there are {@link #MAX_BATCH_SIZE} distinct keys, goes into the same
+ * request. Reads of the same key within one batch share a result, since DynamoDB rejects a batch that
+ * contains duplicate keys. Keys that DynamoDB returns as {@code UnprocessedKeys} are retried with
+ * backoff, and a key that is neither returned nor unprocessed does not exist, so its read completes
+ * with null.
+ * <p>
+ * A batch that fills up is sent by the thread that added the last key; one that is flushed by the
+ * timer is handed to the store's executor, so that the timer thread never waits for a request or a
+ * retry delay. With the synchronous client the store gives the executor enough workers for
+ * {@link #MAX_CONCURRENT_BATCHES} batches at a time.
+ */
+final class ReadBatcher implements Closeable {
+  static final int MAX_BATCH_SIZE = 100; // DynamoDB's limit for BatchGetItem
+  static final int MAX_CONCURRENT_BATCHES = 4;
+
+  private final DynamoDbClientAdapter client;
+  private final String tableName;
+  // Supplies the store's shared AttributeValue for a namespace, so we don't build one per key.
+  private final Function<String, AttributeValue> namespaceValues;
+  private final long windowMillis;
+  private final boolean consistentRead;
+  private final Executor executor;
+  private final ScheduledExecutorService timer;
+  private final StoreMetrics metrics;
+  private final Operation operation;
+  private final LDLogger logger;
+
+  private final Object lock = new Object();
+  private Map<Map.Entry<String, String>, CompletableFuture<Map<String, AttributeValue>>> pending =
+      new LinkedHashMap<>();
+  private ScheduledFuture<?> scheduledFlush;
+
+  ReadBatcher(
+      DynamoDbClientAdapter client,
+      String tableName,
+      Function<String, AttributeValue> namespaceValues,
+      long windowMillis,
+      boolean consistentRead,
+      Executor executor,
+      StoreMetrics metrics,
+      Operation operation,
+      LDLogger logger
+      ) {
+    this.client = client;
+    this.tableName = tableName;
+    this.namespaceValues = namespaceValues;
+    this.windowMillis = windowMillis;
+    this.consistentRead = consistentRead;
+    this.executor = executor;
+    this.metrics = metrics;
+    this.operation = operation;
+    this.logger = logger;
+    this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "LaunchDarkly-DynamoDb-ReadBatcher");
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  /**
+   * Queues a read of one item. The future completes with the item's attributes, or null if there is
+   * no such item.
+   */
+  CompletableFuture<Map<String, AttributeValue>> get(String namespace, String key) {
+    Map.Entry<String, String> combinedKey = new AbstractMap.SimpleEntry<>(namespace, key);
+    CompletableFuture<Map<String, AttributeValue>> result;
+    Map<Map.Entry<String, String>, CompletableFuture<Map<String, AttributeValue>>> fullBatch = null;
+    synchronized (lock) {
+      result = pending.get(combinedKey);
+      if (result != null) {
+        return result;
+      }
+      result = new CompletableFuture<>();
+      pending.put(combinedKey, result);
+      if (pending.size() >= MAX_BATCH_SIZE) {
+        fullBatch = takePending();
+      } else if (pending.size() == 1) {
+        scheduledFlush = timer.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+      }
+    }
+    if (fullBatch != null) {
+      send(fullBatch, 1);
+    }
+    return result;
+  }
+
+  @Override
+  public void close() {
+    timer.shutdownNow();
+    Map<Map.Entry<String, String>, CompletableFuture<Map<String, AttributeValue>>> batch;
+    synchronized (lock) {
+      batch = takePending();
+    }
+    if (!batch.isEmpty()) {
+      send(batch, 1); // don't leave anyone waiting
+    }
+  }
+
+  private void flush() {
+    Map<Map.Entry<String, String>, CompletableFuture<Map<String, AttributeValue>>> batch;
+    synchronized (lock) {
+      if (pending.isEmpty()) {
+        return;
+      }
+      batch = takePending();
+    }
+    try {
+      executor.execute(() -> send(batch, 1));
+    } catch (RuntimeException e) { // executor was shut down
+      for (CompletableFuture<Map<String, AttributeValue>> f: batch.values()) {
+        f.completeExceptionally(e);
+      }
+    }
+  }
+
+  // called with lock held
+  private Map<Map.Entry<String, String>, CompletableFuture<Map<String, AttributeValue>>> takePending() {
+    Map<Map.Entry<String, String>, CompletableFuture<Map<String, AttributeValue>>> batch = pending;
+    pending = new LinkedHashMap<>();
+    if (scheduledFlush != null) {
+      scheduledFlush.cancel(false);
+      scheduledFlush = null;
+    }
+    return batch;
+  }
+
+  private void send(Map<Map.Entry<String, String>, CompletableFuture<Map<String, AttributeValue>>> batch, int attempt) {
+    List<Map<String, AttributeValue>> keys = new ArrayList<>(batch.size());
+    for (Map.Entry<String, String> k: batch.keySet()) {
+      keys.add(mapOf(
+          PARTITION_KEY, namespaceValues.apply(k.getKey()),
+          SORT_KEY, AttributeValue.builder().s(k.getValue()).build()));
+    }
+    BatchGetItemRequest request = BatchGetItemRequest.builder()
+        .requestItems(mapOf(tableName, KeysAndAttributes.builder().keys(keys).consistentRead(consistentRead).build()))
+        .returnConsumedCapacity(metrics.returnConsumedCapacity())
+        .build();
+    CompletableFuture<BatchGetItemResponse> response;
+    try {
+      response = client.batchGetItem(request);
+    } catch (RuntimeException e) {
+      response = DynamoDbClientAdapter.failedFuture(e);
+    }
+    response.whenComplete((resp, error) -> {
+      if (error != null) {
+        for (CompletableFuture<Map<String, AttributeValue>> f: batch.values()) {
+          f.completeExceptionally(error);
+        }
+        return;
+      }
+      metrics.capacityConsumed(operation, resp.consumedCapacity());
+      List<Map<String, AttributeValue>> items = resp.responses() == null ? null : resp.responses().get(tableName);
+      if (items != null) {
+        for (Map<String, AttributeValue> item: items) {
+          CompletableFuture<Map<String, AttributeValue>> f = batch.remove(keyOf(item));
+          if (f != null) {
+            f.complete(item);
+          }
+        }
+      }
+      KeysAndAttributes unprocessed = resp.unprocessedKeys() == null ? null : resp.unprocessedKeys().get(tableName);
+      Map<Map.Entry<String, String>, CompletableFuture<Map<String, AttributeValue>>> retry = new LinkedHashMap<>();
+      if (unprocessed != null && unprocessed.keys() != null) {
+        for (Map<String, AttributeValue> k: unprocessed.keys()) {
+          CompletableFuture<Map<String, AttributeValue>> f = batch.remove(keyOf(k));
+          if (f != null) {
+            retry.put(keyOf(k), f);
+          }
+        }
+      }
+      for (CompletableFuture<Map<String, AttributeValue>> f: batch.values()) {
+        f.complete(null); // not found
+      }
+      if (retry.isEmpty()) {
+        return;
+      }
+      if (attempt >= Backoff.MAX_ATTEMPTS) {
+        RuntimeException e = new RuntimeException(String.format(
+            "DynamoDB did not process %d keys in table %s after %d attempts", retry.size(), tableName, attempt));
+        for (CompletableFuture<Map<String, AttributeValue>> f: retry.values()) {
+          f.completeExceptionally(e);
+        }
+        return;
+      }
+      metrics.requestThrottled(operation);
+      long delay = Backoff.delayMillis(attempt);
+      logger.debug("DynamoDB returned {} unprocessed keys; retrying in {}ms", retry.size(), delay);
+      client.delay(delay).whenComplete((v, delayError) -> {
+        if (delayError != null) {
+          for (CompletableFuture<Map<String, AttributeValue>> f: retry.values()) {
+            f.completeExceptionally(delayError);
+          }
+        } else {
+          send(retry, attempt + 1);
+        }
+      });
+    });
+  }
+
+  private static Map.Entry<String, String> keyOf(Map<String, AttributeValue> item) {
+    return new AbstractMap.SimpleEntry<>(item.get(PARTITION_KEY).s(), item.get(SORT_KEY).s());
+  }
+}
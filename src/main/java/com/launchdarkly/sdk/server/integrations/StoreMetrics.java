@@ -0,0 +1,130 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import com.launchdarkly.logging.LDLogger;
+import com.launchdarkly.sdk.server.integrations.DynamoDbStoreBuilder.ReadOperation;
+import com.launchdarkly.sdk.server.integrations.DynamoDbStoreMetrics.Operation;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+
+/**
+ * Reports events to the application's {@link DynamoDbStoreMetrics}, if any.
+ * <p>
+ * When no metrics were configured, every method is a no-op, and requests do not ask DynamoDB to
+ * return consumed capacity.
+ */
+final class StoreMetrics {
+  static final StoreMetrics NONE = new StoreMetrics(null, LDLogger.none());
+
+  private final DynamoDbStoreMetrics recorder;
+  private final LDLogger logger;
+
+  private StoreMetrics(DynamoDbStoreMetrics recorder, LDLogger logger) {
+    this.recorder = recorder;
+    this.logger = logger;
+  }
+
+  static StoreMetrics of(DynamoDbStoreMetrics recorder, LDLogger logger) {
+    return recorder == null ? NONE : new StoreMetrics(recorder, logger);
+  }
+
+  static Operation operationFor(ReadOperation readOperation) {
+    switch (readOperation) {
+    case GET: return Operation.GET;
+    case GET_ALL: return Operation.GET_ALL;
+    case IS_INITIALIZED: return Operation.IS_INITIALIZED;
+    case GET_MEMBERSHIP: return Operation.GET_MEMBERSHIP;
+    default: return Operation.GET_METADATA;
+    }
+  }
+
+  /**
+   * The value for the {@code ReturnConsumedCapacity} parameter of a request: null, meaning the
+   * parameter is omitted, if nobody is interested.
+   */
+  ReturnConsumedCapacity returnConsumedCapacity() {
+    return recorder == null ? null : ReturnConsumedCapacity.TOTAL;
+  }
+
+  <T> CompletableFuture<T> timed(Operation operation, Supplier<CompletableFuture<T>> action) {
+    if (recorder == null) {
+      return action.get();
+    }
+    long start = System.nanoTime();
+    CompletableFuture<T> result;
+    try {
+      result = action.get();
+    } catch (RuntimeException e) {
+      result = DynamoDbClientAdapter.failedFuture(e);
+    }
+    return result.whenComplete((value, error) -> {
+      long duration = System.nanoTime() - start;
+      try {
+        recorder.operationCompleted(operation, duration, error == null);
+      } catch (RuntimeException e) {
+        onRecorderError(e);
+      }
+    });
+  }
+
+  void capacityConsumed(Operation operation, ConsumedCapacity capacity) {
+    if (recorder == null || capacity == null || capacity.capacityUnits() == null) {
+      return;
+    }
+    try {
+      recorder.capacityConsumed(operation, capacity.capacityUnits());
+    } catch (RuntimeException e) {
+      onRecorderError(e);
+    }
+  }
+
+  void capacityConsumed(Operation operation, List<ConsumedCapacity> capacities) {
+    if (recorder == null || capacities == null) {
+      return;
+    }
+    for (ConsumedCapacity c: capacities) {
+      capacityConsumed(operation, c);
+    }
+  }
+
+  void requestThrottled(Operation operation) {
+    if (recorder == null) {
+      return;
+    }
+    try {
+      recorder.requestThrottled(operation);
+    } catch (RuntimeException e) {
+      onRecorderError(e);
+    }
+  }
+
+  void itemWritten(Operation operation, int sizeBytes) {
+    if (recorder == null) {
+      return;
+    }
+    try {
+      recorder.itemWritten(operation, sizeBytes);
+    } catch (RuntimeException e) {
+      onRecorderError(e);
+    }
+  }
+
+  void replicaWriteFailed(Operation operation) {
+    if (recorder == null) {
+      return;
+    }
+    try {
+      recorder.replicaWriteFailed(operation);
+    } catch (RuntimeException e) {
+      onRecorderError(e);
+    }
+  }
+
+  private void onRecorderError(RuntimeException e) {
+    logger.warn("Unexpected exception from DynamoDbStoreMetrics implementation: {}", e.toString());
+  }
+}
@@ -0,0 +1,151 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import static com.launchdarkly.sdk.server.integrations.DynamoDbClientAdapter.join;
+
+import com.launchdarkly.logging.LDLogger;
+import com.launchdarkly.sdk.server.subsystems.DataStoreTypes.DataKind;
+import com.launchdarkly.sdk.server.subsystems.DataStoreTypes.SerializedItemDescriptor;
+
+import java.io.Closeable;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Holds upserts for a short time and writes only the newest version of each item.
+ * <p>
+ * An upsert is added to a map keyed by namespace and key, replacing any pending upsert of the same
+ * item with a lower version, and the caller returns right away. A timer thread flushes the map once
+ * per window: it hands every pending item to the writer, up to {@link #MAX_CONCURRENT_WRITES} at a
+ * time, and waits for them all before it starts the next flush, so two writes of the same item are
+ * never in progress at once. The writer still does the usual conditional write, so an item that is
+ * older than the stored one is not written. An item stays in the map, where {@link #get(String, String)}
+ * can see it, until its write has succeeded; it is then removed, unless a newer version has replaced
+ * it meanwhile. If a write fails, the item is just left in the map to be tried again at the next
+ * flush. Closing the buffer does one last flush and waits for it.
+ */
+final class UpsertBuffer implements Closeable {
+  static final int MAX_CONCURRENT_WRITES = 8;
+
+  interface Writer {
+    CompletableFuture<Boolean> write(DataKind kind, String key, SerializedItemDescriptor item);
+  }
+
+  static final class Pending {
+    final DataKind kind;
+    final String key;
+    final SerializedItemDescriptor item;
+
+    Pending(DataKind kind, String key, SerializedItemDescriptor item) {
+      this.kind = kind;
+      this.key = key;
+      this.item = item;
+    }
+  }
+
+  private final Writer writer;
+  private final Executor executor;
+  private final ScheduledExecutorService timer;
+  private final LDLogger logger;
+  private final ConcurrentHashMap<Map.Entry<String, String>, Pending> pending = new ConcurrentHashMap<>();
+
+  UpsertBuffer(Writer writer, long windowMillis, Executor executor, LDLogger logger) {
+    this.writer = writer;
+    this.executor = executor;
+    this.logger = logger;
+    this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "LaunchDarkly-DynamoDb-UpsertBuffer");
+      t.setDaemon(true);
+      return t;
+    });
+    timer.scheduleWithFixedDelay(this::flushAndWait, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Adds an upsert. Returns false if an upsert of the same or a newer version is already pending, in
+   * which case this one will not be written.
+   */
+  boolean add(DataKind kind, String namespace, String key, SerializedItemDescriptor item) {
+    Pending mine = new Pending(kind, key, item);
+    Pending result = pending.merge(new AbstractMap.SimpleEntry<>(namespace, key), mine,
+        (old, added) -> added.item.getVersion() > old.item.getVersion() ? added : old);
+    return result == mine;
+  }
+
+  /**
+   * Returns the pending upsert of an item, or null if there is none.
+   */
+  Pending get(String namespace, String key) {
+    return pending.get(new AbstractMap.SimpleEntry<>(namespace, key));
+  }
+
+  /**
+   * Discards everything that is pending, for instance because the whole data set is being replaced.
+   */
+  void clear() {
+    pending.clear();
+  }
+
+  int size() {
+    return pending.size();
+  }
+
+  CompletableFuture<Void> flush() {
+    List<Supplier<CompletableFuture<Void>>> writes = new ArrayList<>();
+    for (Map.Entry<Map.Entry<String, String>, Pending> entry: pending.entrySet()) {
+      Map.Entry<String, String> k = entry.getKey();
+      Pending p = entry.getValue();
+      writes.add(() -> {
+        CompletableFuture<Boolean> written;
+        try {
+          written = writer.write(p.kind, p.key, p.item);
+        } catch (RuntimeException e) {
+          written = DynamoDbClientAdapter.failedFuture(e);
+        }
+        return written.handle((result, error) -> {
+          if (error != null) {
+            logger.warn("Unable to write \"{}\" in \"{}\", will retry: {}", p.key, k.getKey(),
+                DynamoDbClientAdapter.asUnchecked(error).toString());
+          } else {
+            pending.remove(k, p); // a newer version that arrived during the write stays pending
+          }
+          return null;
+        });
+      });
+    }
+    if (writes.isEmpty()) {
+      return CompletableFuture.completedFuture(null);
+    }
+    return FanOut.run(writes, new CongestionWindow(MAX_CONCURRENT_WRITES), executor).thenApply(v -> null);
+  }
+
+  private void flushAndWait() {
+    try {
+      join(flush());
+    } catch (RuntimeException e) { // shouldn't happen, since failed writes are handled above
+      logger.warn("Unexpected error while writing buffered upserts: {}", e.toString());
+    }
+  }
+
+  @Override
+  public void close() {
+    timer.shutdown();
+    try {
+      timer.awaitTermination(1, TimeUnit.MINUTES); // let a flush that's in progress finish
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    flushAndWait();
+    if (!pending.isEmpty()) {
+      logger.error("{} buffered upserts could not be written before the data store was closed", pending.size());
+    }
+  }
+}
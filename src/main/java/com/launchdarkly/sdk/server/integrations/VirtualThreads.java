@@ -0,0 +1,43 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import com.launchdarkly.logging.LDLogger;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates a virtual-thread-per-task executor on Java 21 and later.
+ * <p>
+ * The library is compiled for Java 8, so {@code Executors.newVirtualThreadPerTaskExecutor()} can only
+ * be reached by reflection. The lookup is done once.
+ */
+final class VirtualThreads {
+  private static final Method NEW_EXECUTOR = findFactoryMethod();
+
+  private VirtualThreads() {}
+
+  /**
+   * Returns a new executor that starts a virtual thread for each task, or null if this Java runtime
+   * does not have virtual threads.
+   */
+  static ExecutorService newExecutor(LDLogger logger) {
+    if (NEW_EXECUTOR == null) {
+      return null;
+    }
+    try {
+      return (ExecutorService)NEW_EXECUTOR.invoke(null);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      logger.warn("Unable to create virtual threads, using platform threads instead: {}", e.toString());
+      return null;
+    }
+  }
+
+  private static Method findFactoryMethod() {
+    try {
+      return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+    } catch (NoSuchMethodException | SecurityException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,42 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.RequestLimitExceededException;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+
+@SuppressWarnings("javadoc")
+public class BackoffTest {
+  @Test
+  public void delayIsJitteredAndCapped() {
+    for (int attempt = 1; attempt < 20; attempt++) {
+      long ceiling = Math.min(Backoff.MAX_DELAY_MILLIS, Backoff.BASE_DELAY_MILLIS << Math.min(attempt, 16));
+      for (int i = 0; i < 20; i++) {
+        assertThat(Backoff.delayMillis(attempt),
+            allOf(greaterThanOrEqualTo(ceiling / 2), lessThanOrEqualTo(ceiling)));
+      }
+    }
+  }
+
+  @Test
+  public void throttlingErrorsAreRecognized() {
+    assertThat(Backoff.isThrottling(ProvisionedThroughputExceededException.builder().build()), is(true));
+    assertThat(Backoff.isThrottling(RequestLimitExceededException.builder().build()), is(true));
+    assertThat(Backoff.isThrottling(DynamoDbException.builder()
+        .awsErrorDetails(AwsErrorDetails.builder().errorCode("ThrottlingException").build()).build()), is(true));
+    assertThat(Backoff.isThrottling(DynamoDbException.builder().statusCode(429).build()), is(true));
+
+    assertThat(Backoff.isThrottling(ResourceNotFoundException.builder().build()), is(false));
+    assertThat(Backoff.isThrottling(DynamoDbException.builder().statusCode(400).build()), is(false));
+    assertThat(Backoff.isThrottling(new RuntimeException()), is(false));
+  }
+}
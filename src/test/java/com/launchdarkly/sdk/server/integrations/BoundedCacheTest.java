@@ -0,0 +1,67 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+@SuppressWarnings("javadoc")
+public class BoundedCacheTest {
+  private final AtomicLong now = new AtomicLong();
+  private final BoundedCache<String, String> cache = new BoundedCache<>(3, Duration.ofNanos(100), now::get);
+
+  @Test
+  public void returnsCachedValueUntilItExpires() {
+    cache.put("a", "1", cache.generation());
+    assertThat(cache.get("a").value, equalTo("1"));
+    now.set(99);
+    assertThat(cache.get("a").value, equalTo("1"));
+    now.set(100);
+    assertThat(cache.get("a"), nullValue());
+  }
+
+  @Test
+  public void canCacheNullValue() {
+    cache.put("a", null, cache.generation());
+    assertThat(cache.get("a"), notNullValue());
+    assertThat(cache.get("a").value, nullValue());
+  }
+
+  @Test
+  public void evictsLeastRecentlyUsedEntryWhenFull() {
+    cache.put("a", "1", cache.generation());
+    cache.put("b", "2", cache.generation());
+    cache.put("c", "3", cache.generation());
+    cache.get("a");
+    cache.put("d", "4", cache.generation());
+    assertThat(cache.size(), equalTo(3));
+    assertThat(cache.get("b"), nullValue());
+    assertThat(cache.get("a").value, equalTo("1"));
+  }
+
+  @Test
+  public void clearRemovesEntriesAndRejectsValuesLoadedBeforeIt() {
+    cache.put("a", "1", cache.generation());
+    long generationBeforeClear = cache.generation();
+    cache.clear();
+    assertThat(cache.get("a"), nullValue());
+    cache.put("b", "2", generationBeforeClear);
+    assertThat(cache.get("b"), nullValue());
+    cache.put("b", "2", cache.generation());
+    assertThat(cache.get("b").value, equalTo("2"));
+  }
+
+  @Test
+  public void largeCacheStaysWithinItsSize() {
+    BoundedCache<Integer, Integer> big = new BoundedCache<>(1000, Duration.ofMinutes(1));
+    for (int i = 0; i < 5000; i++) {
+      big.put(i, i, big.generation());
+    }
+    assertThat(big.size() <= 1008, equalTo(true));
+  }
+}
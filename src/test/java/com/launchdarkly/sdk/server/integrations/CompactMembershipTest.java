@@ -0,0 +1,73 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import com.launchdarkly.sdk.server.subsystems.BigSegmentStoreTypes;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+@SuppressWarnings("javadoc")
+public class CompactMembershipTest {
+  @Test
+  public void smallMembershipUsesSdkImplementation() {
+    BigSegmentStoreTypes.Membership m = CompactMembership.fromSegmentRefs(Arrays.asList("a", "b"), null);
+    assertThat(m, not(instanceOf(CompactMembership.class)));
+    assertThat(m, equalTo(BigSegmentStoreTypes.createMembershipFromSegmentRefs(Arrays.asList("a", "b"), null)));
+  }
+
+  @Test
+  public void largeMembershipGivesSameAnswersAsSdkImplementation() {
+    List<String> included = new ArrayList<>(), excluded = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      included.add("inc" + i);
+      excluded.add("exc" + i);
+    }
+    excluded.add("inc7"); // included takes precedence
+    BigSegmentStoreTypes.Membership expected = BigSegmentStoreTypes.createMembershipFromSegmentRefs(included, excluded);
+    BigSegmentStoreTypes.Membership actual = CompactMembership.fromSegmentRefs(included, excluded);
+    assertThat(actual, instanceOf(CompactMembership.class));
+    for (int i = 0; i < 310; i++) {
+      for (String ref: new String[] { "inc" + i, "exc" + i, "other" + i }) {
+        assertThat(ref, actual.checkMembership(ref), equalTo(expected.checkMembership(ref)));
+      }
+    }
+    assertThat(actual.checkMembership("inc7"), equalTo(true));
+    assertThat(actual.checkMembership(null), nullValue());
+  }
+
+  @Test
+  public void equalityDoesNotDependOnOrder() {
+    List<String> refs = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      refs.add("seg" + i);
+    }
+    List<String> reversed = new ArrayList<>(refs);
+    Collections.reverse(reversed);
+    BigSegmentStoreTypes.Membership m1 = CompactMembership.fromSegmentRefs(refs, null);
+    BigSegmentStoreTypes.Membership m2 = CompactMembership.fromSegmentRefs(reversed, null);
+    assertThat(m1, equalTo(m2));
+    assertThat(m1.hashCode(), equalTo(m2.hashCode()));
+    assertThat(m1, not(equalTo(CompactMembership.fromSegmentRefs(null, refs))));
+  }
+
+  @Test
+  public void neverEqualToSdkMembershipWithSameContents() {
+    List<String> refs = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      refs.add("seg" + i);
+    }
+    BigSegmentStoreTypes.Membership compact = CompactMembership.fromSegmentRefs(refs, null);
+    BigSegmentStoreTypes.Membership sdk = BigSegmentStoreTypes.createMembershipFromSegmentRefs(refs, null);
+    assertThat(compact, not(equalTo(sdk)));
+    assertThat(sdk, not(equalTo(compact))); // symmetric
+  }
+}
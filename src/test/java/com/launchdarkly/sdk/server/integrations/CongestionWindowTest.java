@@ -0,0 +1,63 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+@SuppressWarnings("javadoc")
+public class CongestionWindowTest {
+  @Test
+  public void windowHalvesOnThrottle() {
+    CongestionWindow w = new CongestionWindow(16);
+    assertThat(w.size(), equalTo(16));
+    w.onThrottle();
+    assertThat(w.size(), equalTo(8));
+    w.onThrottle();
+    assertThat(w.size(), equalTo(4));
+  }
+
+  @Test
+  public void windowNeverGoesBelowOne() {
+    CongestionWindow w = new CongestionWindow(2);
+    for (int i = 0; i < 10; i++) {
+      w.onThrottle();
+    }
+    assertThat(w.size(), equalTo(1));
+  }
+
+  @Test
+  public void windowGrowsAdditivelyUpToMax() {
+    CongestionWindow w = new CongestionWindow(8);
+    w.onThrottle();
+    w.onThrottle();
+    assertThat(w.size(), equalTo(2));
+    // a window's worth of successes adds about one batch
+    w.onSuccess();
+    w.onSuccess();
+    w.onSuccess();
+    assertThat(w.size(), equalTo(3));
+    for (int i = 0; i < 1000; i++) {
+      w.onSuccess();
+    }
+    assertThat(w.size(), equalTo(8));
+  }
+
+  @Test
+  public void tryAcquireFailsWhenWindowIsFullAndNotifiesOnRelease() {
+    CongestionWindow w = new CongestionWindow(2);
+    AtomicInteger notified = new AtomicInteger();
+    assertThat(w.tryAcquire(notified::incrementAndGet), is(true));
+    assertThat(w.tryAcquire(notified::incrementAndGet), is(true));
+    assertThat(w.tryAcquire(notified::incrementAndGet), is(false));
+    assertThat(notified.get(), equalTo(0));
+    w.release();
+    assertThat(notified.get(), equalTo(1));
+    w.release(); // the callback is only run once
+    assertThat(notified.get(), equalTo(1));
+    assertThat(w.tryAcquire(notified::incrementAndGet), is(true));
+  }
+}
@@ -0,0 +1,15 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import com.launchdarkly.sdk.server.subsystems.BigSegmentStore;
+import com.launchdarkly.sdk.server.subsystems.ComponentConfigurer;
+
+/**
+ * Runs the same tests as {@link DynamoDbBigSegmentStoreImplTest}, but using the asynchronous DynamoDB client.
+ */
+@SuppressWarnings("javadoc")
+public class DynamoDbBigSegmentStoreImplAsyncTest extends DynamoDbBigSegmentStoreImplTest {
+  @Override
+  protected ComponentConfigurer<BigSegmentStore> makeStore(String prefix) {
+    return TestUtils.baseBigSegmentStoreBuilder().asyncClient(true).prefix(prefix);
+  }
+}
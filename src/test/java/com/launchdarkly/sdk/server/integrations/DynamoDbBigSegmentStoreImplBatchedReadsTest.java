@@ -0,0 +1,18 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import com.launchdarkly.sdk.server.subsystems.BigSegmentStore;
+import com.launchdarkly.sdk.server.subsystems.ComponentConfigurer;
+
+import java.time.Duration;
+
+/**
+ * Runs the same tests as {@link DynamoDbBigSegmentStoreImplTest}, but with membership queries going
+ * through {@code BatchGetItem}.
+ */
+@SuppressWarnings("javadoc")
+public class DynamoDbBigSegmentStoreImplBatchedReadsTest extends DynamoDbBigSegmentStoreImplTest {
+  @Override
+  protected ComponentConfigurer<BigSegmentStore> makeStore(String prefix) {
+    return TestUtils.baseBigSegmentStoreBuilder().readBatchingWindow(Duration.ofMillis(2)).prefix(prefix);
+  }
+}
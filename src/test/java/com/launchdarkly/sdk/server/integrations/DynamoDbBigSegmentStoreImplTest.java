@@ -1,11 +1,20 @@
 package com.launchdarkly.sdk.server.integrations;
 
+import com.google.common.collect.ImmutableList;
+import com.launchdarkly.sdk.server.LDConfig;
 import com.launchdarkly.sdk.server.subsystems.BigSegmentStore;
 import com.launchdarkly.sdk.server.subsystems.BigSegmentStoreTypes;
 import com.launchdarkly.sdk.server.subsystems.ComponentConfigurer;
 
 import org.junit.BeforeClass;
+import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.launchdarkly.sdk.server.TestComponents.clientContext;
 import static com.launchdarkly.sdk.server.integrations.CollectionHelpers.mapOf;
 import static com.launchdarkly.sdk.server.integrations.DynamoDbStoreImplBase.PARTITION_KEY;
 import static com.launchdarkly.sdk.server.integrations.DynamoDbStoreImplBase.SORT_KEY;
@@ -13,9 +22,17 @@ import static com.launchdarkly.sdk.server.integrations.TestUtils.TABLE_NAME;
 import static com.launchdarkly.sdk.server.integrations.TestUtils.clearEverything;
 import static com.launchdarkly.sdk.server.integrations.TestUtils.createTableIfNecessary;
 import static com.launchdarkly.sdk.server.integrations.TestUtils.createTestClient;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
 import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
 import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
 
@@ -81,6 +98,104 @@ public class DynamoDbBigSegmentStoreImplTest extends BigSegmentStoreTestBase {
     }
   }
 
+  @Test
+  public void cachedMembershipsAreDiscardedWhenSyncTimeIncreases() throws Exception {
+    String prefix = "membershipcache";
+    clearData(prefix);
+    setMetadata(prefix, new BigSegmentStoreTypes.StoreMetadata(1000));
+    setSegments(prefix, "user1", ImmutableList.of("seg1"), null);
+    try (BigSegmentStore store = TestUtils.baseBigSegmentStoreBuilder().membershipCacheSize(100).prefix(prefix)
+        .build(clientContext("", new LDConfig.Builder().build()))) {
+      store.getMetadata();
+      assertThat(store.getMembership("user1").checkMembership("seg1"), is(true));
+      assertThat(store.getMembership("user2"), nullValue());
+
+      // Changes are not seen while the sync time stays the same...
+      setSegments(prefix, "user1", null, ImmutableList.of("seg2"));
+      setSegments(prefix, "user2", ImmutableList.of("seg1"), null);
+      store.getMetadata();
+      assertThat(store.getMembership("user1").checkMembership("seg2"), nullValue());
+      assertThat(store.getMembership("user2"), nullValue());
+
+      // ...but are seen as soon as a newer sync time has been read.
+      setMetadata(prefix, new BigSegmentStoreTypes.StoreMetadata(2000));
+      store.getMetadata();
+      assertThat(store.getMembership("user1").checkMembership("seg2"), is(false));
+      assertThat(store.getMembership("user2").checkMembership("seg1"), is(true));
+    }
+  }
+
+  @Test
+  public void membershipsCanBeReadInBulkAndCached() throws Exception {
+    String prefix = "bulkmemberships";
+    clearData(prefix);
+    setMetadata(prefix, new BigSegmentStoreTypes.StoreMetadata(1000));
+    List<String> userHashes = new ArrayList<>();
+    for (int i = 0; i < 150; i++) { // more than one BatchGetItem request
+      userHashes.add("user" + i);
+    }
+    setSegments(prefix, "user1", ImmutableList.of("seg1"), null);
+    setSegments(prefix, "user149", null, ImmutableList.of("seg2"));
+    // getMemberships() is reached through the public DynamoDbBigSegmentStore interface
+    try (DynamoDbBigSegmentStore store = (DynamoDbBigSegmentStore)TestUtils.baseBigSegmentStoreBuilder()
+        .membershipCacheSize(1000).prefix(prefix).build(clientContext("", new LDConfig.Builder().build()))) {
+      store.getMetadata();
+      Map<String, BigSegmentStoreTypes.Membership> memberships = store.getMemberships(userHashes);
+      assertThat(memberships.size(), is(150));
+      assertThat(memberships.get("user1").checkMembership("seg1"), is(true));
+      assertThat(memberships.get("user149").checkMembership("seg2"), is(false));
+      assertThat(memberships.get("user2"), nullValue());
+
+      // The results are in the membership cache, so this change isn't seen yet
+      setSegments(prefix, "user2", ImmutableList.of("seg1"), null);
+      assertThat(store.getMembership("user2"), nullValue());
+      assertThat(store.getMembership("user1").checkMembership("seg1"), is(true));
+    }
+  }
+
+  @Test
+  public void throttledMembershipBatchIsRetried() throws Exception {
+    String prefix = "throttledmemberships";
+    clearData(prefix);
+    setMetadata(prefix, new BigSegmentStoreTypes.StoreMetadata(1000));
+    setSegments(prefix, "user1", ImmutableList.of("seg1"), null);
+    DynamoDbClient realClient = createTestClient();
+    AtomicBoolean throttleOnce = new AtomicBoolean(true);
+    DynamoDbClient client = new DynamoDbClient() {
+      @Override
+      public BatchGetItemResponse batchGetItem(BatchGetItemRequest request) {
+        if (throttleOnce.getAndSet(false)) {
+          throw ProvisionedThroughputExceededException.builder().message("slow down").build();
+        }
+        return realClient.batchGetItem(request);
+      }
+
+      @Override
+      public GetItemResponse getItem(GetItemRequest request) {
+        return realClient.getItem(request);
+      }
+
+      @Override
+      public String serviceName() {
+        return realClient.serviceName();
+      }
+
+      @Override
+      public void close() {}
+    };
+    DynamoDbHistogramMetrics metrics = new DynamoDbHistogramMetrics();
+    try (DynamoDbBigSegmentStore store = (DynamoDbBigSegmentStore)TestUtils.baseBigSegmentStoreBuilder()
+        .existingClient(client).metrics(metrics).prefix(prefix)
+        .build(clientContext("", new LDConfig.Builder().build()))) {
+      Map<String, BigSegmentStoreTypes.Membership> memberships =
+          store.getMemberships(ImmutableList.of("user1", "user2"));
+      assertThat(memberships.get("user1").checkMembership("seg1"), is(true));
+      assertThat(memberships.get("user2"), nullValue());
+      assertThat(throttleOnce.get(), is(false));
+      assertThat(metrics.getThrottleCount(DynamoDbStoreMetrics.Operation.GET_MEMBERSHIP), is(1L));
+    }
+  }
+
   private void addToSet(DynamoDbClient client, String prefix, String userHash, String attrName, String value) {
     String namespaceKey = prefix + ":big_segments_user";
     client.updateItem(UpdateItemRequest.builder()
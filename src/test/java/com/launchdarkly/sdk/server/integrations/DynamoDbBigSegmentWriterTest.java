@@ -0,0 +1,183 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import com.google.common.collect.ImmutableList;
+import com.launchdarkly.logging.LDLogger;
+import com.launchdarkly.sdk.server.LDConfig;
+import com.launchdarkly.sdk.server.subsystems.BigSegmentStore;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.launchdarkly.sdk.server.TestComponents.clientContext;
+import static com.launchdarkly.sdk.server.integrations.TestUtils.baseBigSegmentStoreBuilder;
+import static com.launchdarkly.sdk.server.integrations.TestUtils.clearEverything;
+import static com.launchdarkly.sdk.server.integrations.TestUtils.createTableIfNecessary;
+import static com.launchdarkly.sdk.server.integrations.TestUtils.createTestClient;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.RequestLimitExceededException;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+/**
+ * Note that you must be running a local DynamoDB instance on port 8000 to run these tests.
+ */
+@SuppressWarnings("javadoc")
+public class DynamoDbBigSegmentWriterTest {
+  private static final String PREFIX = "segmentwriter";
+
+  @BeforeClass
+  public static void setUpAll() {
+    createTableIfNecessary();
+  }
+
+  @Before
+  public void setUp() {
+    clearEverything(PREFIX);
+  }
+
+  @Test
+  public void changesAreReadableByStoreAfterSyncTimeIsSet() throws Exception {
+    List<String> users = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      users.add("user" + i);
+    }
+    try (DynamoDbBigSegmentWriter writer = new DynamoDbBigSegmentWriter(baseBigSegmentStoreBuilder().prefix(PREFIX));
+        BigSegmentStore store = baseBigSegmentStoreBuilder().prefix(PREFIX)
+            .build(clientContext("", new LDConfig.Builder().build()))) {
+      assertThat(store.getMetadata(), nullValue());
+
+      writer.apply(new DynamoDbBigSegmentWriter.Changes()
+          .include("seg1.g1", users)
+          .exclude("seg2.g1", ImmutableList.of("user0"))
+          .include("seg2.g1", ImmutableList.of("user1")),
+          1000);
+      assertThat(store.getMetadata().getLastUpToDate(), is(1000L));
+      assertThat(store.getMembership("user199").checkMembership("seg1.g1"), is(true));
+      assertThat(store.getMembership("user0").checkMembership("seg2.g1"), is(false));
+      assertThat(store.getMembership("user1").checkMembership("seg2.g1"), is(true));
+      assertThat(store.getMembership("user200"), nullValue());
+
+      // Adds and removes for the same user and attribute go in separate updates
+      writer.apply(new DynamoDbBigSegmentWriter.Changes()
+          .removeIncluded("seg1.g1", ImmutableList.of("user1", "user2"))
+          .include("seg3.g1", ImmutableList.of("user1"))
+          .removeExcluded("seg2.g1", ImmutableList.of("user0")),
+          2000);
+      assertThat(store.getMetadata().getLastUpToDate(), is(2000L));
+      assertThat(store.getMembership("user1").checkMembership("seg1.g1"), nullValue());
+      assertThat(store.getMembership("user1").checkMembership("seg2.g1"), is(true));
+      assertThat(store.getMembership("user1").checkMembership("seg3.g1"), is(true));
+      assertThat(store.getMembership("user2").checkMembership("seg1.g1"), nullValue());
+      assertThat(store.getMembership("user0").checkMembership("seg2.g1"), nullValue());
+      assertThat(store.getMembership("user0").checkMembership("seg1.g1"), is(true));
+    }
+  }
+
+  @Test
+  public void laterChangeForSameUserAndSegmentWins() throws Exception {
+    try (DynamoDbBigSegmentWriter writer = new DynamoDbBigSegmentWriter(baseBigSegmentStoreBuilder().prefix(PREFIX));
+        BigSegmentStore store = baseBigSegmentStoreBuilder().prefix(PREFIX)
+            .build(clientContext("", new LDConfig.Builder().build()))) {
+      writer.apply(new DynamoDbBigSegmentWriter.Changes()
+          .include("seg1.g1", ImmutableList.of("user1"))
+          .removeIncluded("seg1.g1", ImmutableList.of("user1"))
+          .removeExcluded("seg1.g1", ImmutableList.of("user2"))
+          .exclude("seg1.g1", ImmutableList.of("user2")),
+          1000);
+      assertThat(store.getMembership("user1").checkMembership("seg1.g1"), nullValue());
+      assertThat(store.getMembership("user2").checkMembership("seg1.g1"), is(false));
+    }
+  }
+
+  @Test
+  public void updatesAreSentConcurrentlyByDefault() throws Exception {
+    int users = 8;
+    CountDownLatch allStarted = new CountDownLatch(users);
+    AtomicInteger inFlight = new AtomicInteger(), maxInFlight = new AtomicInteger();
+    DynamoDbClient realClient = createTestClient();
+    DynamoDbClient slowClient = new DynamoDbClient() {
+      @Override
+      public UpdateItemResponse updateItem(UpdateItemRequest request) {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        allStarted.countDown();
+        try {
+          allStarted.await(5, TimeUnit.SECONDS); // sequential updates would each wait this long
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+        inFlight.decrementAndGet();
+        return realClient.updateItem(request);
+      }
+
+      @Override
+      public String serviceName() {
+        return realClient.serviceName();
+      }
+
+      @Override
+      public void close() {}
+    };
+    List<String> userHashes = new ArrayList<>();
+    for (int i = 0; i < users; i++) {
+      userHashes.add("user" + i);
+    }
+    try (DynamoDbBigSegmentWriter writer = new DynamoDbBigSegmentWriter(DynamoDbClientAdapter.of(slowClient, false),
+        baseBigSegmentStoreBuilder().prefix(PREFIX), LDLogger.none())) {
+      writer.apply(new DynamoDbBigSegmentWriter.Changes().include("seg1.g1", userHashes), 1000);
+    }
+    assertThat(maxInFlight.get(), is(users));
+  }
+
+  @Test
+  public void throttledUpdatesAreRetried() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    DynamoDbClient realClient = createTestClient();
+    DynamoDbClient throttlingClient = new DynamoDbClient() {
+      @Override
+      public UpdateItemResponse updateItem(UpdateItemRequest request) {
+        int n = calls.incrementAndGet();
+        if (n == 1) {
+          throw RequestLimitExceededException.builder().message("too fast").build();
+        }
+        if (n == 2) {
+          throw DynamoDbException.builder().statusCode(400)
+              .awsErrorDetails(AwsErrorDetails.builder().errorCode("ThrottlingException").build()).build();
+        }
+        return realClient.updateItem(request);
+      }
+
+      @Override
+      public String serviceName() {
+        return realClient.serviceName();
+      }
+
+      @Override
+      public void close() {}
+    };
+    try (DynamoDbBigSegmentWriter writer = new DynamoDbBigSegmentWriter(DynamoDbClientAdapter.of(throttlingClient, false),
+            baseBigSegmentStoreBuilder().prefix(PREFIX).maxInFlightBatchWrites(4), LDLogger.none());
+        BigSegmentStore store = baseBigSegmentStoreBuilder().prefix(PREFIX)
+            .build(clientContext("", new LDConfig.Builder().build()))) {
+      writer.apply(new DynamoDbBigSegmentWriter.Changes()
+          .include("seg1.g1", ImmutableList.of("user1", "user2", "user3")),
+          1000);
+      assertThat(calls.get(), is(6)); // 3 users, the sync time, and 2 retries
+      assertThat(store.getMetadata().getLastUpToDate(), is(1000L));
+      assertThat(store.getMembership("user1").checkMembership("seg1.g1"), is(true));
+      assertThat(store.getMembership("user3").checkMembership("seg1.g1"), is(true));
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import com.launchdarkly.sdk.server.subsystems.ComponentConfigurer;
+import com.launchdarkly.sdk.server.subsystems.PersistentDataStore;
+
+import org.junit.Test;
+
+import static com.launchdarkly.sdk.server.integrations.TestUtils.baseDataStoreBuilder;
+import static com.launchdarkly.sdk.server.integrations.TestUtils.createTestClient;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+
+/**
+ * Runs the same tests as {@link DynamoDbDataStoreImplTest}, but using the asynchronous DynamoDB client.
+ */
+@SuppressWarnings("javadoc")
+public class DynamoDbDataStoreImplAsyncTest extends DynamoDbDataStoreImplTest {
+  @Override
+  protected ComponentConfigurer<PersistentDataStore> buildStore(String prefix) {
+    return baseDataStoreBuilder().asyncClient(true).prefix(prefix);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void asyncClientCannotBeCombinedWithExistingSyncClient() {
+    baseDataStoreBuilder().asyncClient(true).existingClient(createTestClient()).makeClient();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void existingAsyncClientCannotBeCombinedWithExistingSyncClient() {
+    DynamoDbAsyncClient asyncClient = new DynamoDbAsyncClient() {
+      @Override
+      public String serviceName() {
+        return DynamoDbAsyncClient.SERVICE_NAME;
+      }
+
+      @Override
+      public void close() {}
+    };
+    baseDataStoreBuilder().existingAsyncClient(asyncClient).existingClient(createTestClient()).makeClient();
+  }
+}
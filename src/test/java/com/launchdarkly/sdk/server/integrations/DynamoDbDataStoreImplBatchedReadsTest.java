@@ -0,0 +1,20 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import com.launchdarkly.sdk.server.subsystems.ComponentConfigurer;
+import com.launchdarkly.sdk.server.subsystems.PersistentDataStore;
+
+import java.time.Duration;
+
+import static com.launchdarkly.sdk.server.integrations.TestUtils.baseDataStoreBuilder;
+
+/**
+ * Runs the same tests as {@link DynamoDbDataStoreImplTest}, but with point reads going through
+ * {@code BatchGetItem}.
+ */
+@SuppressWarnings("javadoc")
+public class DynamoDbDataStoreImplBatchedReadsTest extends DynamoDbDataStoreImplTest {
+  @Override
+  protected ComponentConfigurer<PersistentDataStore> buildStore(String prefix) {
+    return baseDataStoreBuilder().readBatchingWindow(Duration.ofMillis(2)).prefix(prefix);
+  }
+}
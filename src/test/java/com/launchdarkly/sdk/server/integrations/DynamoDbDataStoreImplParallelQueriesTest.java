@@ -0,0 +1,18 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import com.launchdarkly.sdk.server.subsystems.ComponentConfigurer;
+import com.launchdarkly.sdk.server.subsystems.PersistentDataStore;
+
+import static com.launchdarkly.sdk.server.integrations.TestUtils.baseDataStoreBuilder;
+
+/**
+ * Runs the same tests as {@link DynamoDbDataStoreImplTest}, but with queries running
+ * concurrently and prefetching their next page.
+ */
+@SuppressWarnings("javadoc")
+public class DynamoDbDataStoreImplParallelQueriesTest extends DynamoDbDataStoreImplTest {
+  @Override
+  protected ComponentConfigurer<PersistentDataStore> buildStore(String prefix) {
+    return baseDataStoreBuilder().parallelQueries(true).prefix(prefix);
+  }
+}
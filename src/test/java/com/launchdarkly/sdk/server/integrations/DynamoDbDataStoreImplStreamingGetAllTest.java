@@ -0,0 +1,18 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import com.launchdarkly.sdk.server.subsystems.ComponentConfigurer;
+import com.launchdarkly.sdk.server.subsystems.PersistentDataStore;
+
+import static com.launchdarkly.sdk.server.integrations.TestUtils.baseDataStoreBuilder;
+
+/**
+ * Runs the same tests as {@link DynamoDbDataStoreImplTest}, but with getAll() reading its
+ * results lazily.
+ */
+@SuppressWarnings("javadoc")
+public class DynamoDbDataStoreImplStreamingGetAllTest extends DynamoDbDataStoreImplTest {
+  @Override
+  protected ComponentConfigurer<PersistentDataStore> buildStore(String prefix) {
+    return baseDataStoreBuilder().streamingGetAll(true).prefix(prefix);
+  }
+}
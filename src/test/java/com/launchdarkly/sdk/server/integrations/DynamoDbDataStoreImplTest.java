@@ -2,9 +2,11 @@ package com.launchdarkly.sdk.server.integrations;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.launchdarkly.sdk.server.DataModel;
+import com.launchdarkly.sdk.server.integrations.DynamoDbStoreBuilder.ReadOperation;
 import com.launchdarkly.sdk.server.subsystems.ClientContext;
 import com.launchdarkly.sdk.server.subsystems.ComponentConfigurer;
 import com.launchdarkly.sdk.server.subsystems.DataStoreTypes.DataKind;
@@ -16,17 +18,46 @@ import com.launchdarkly.sdk.server.subsystems.PersistentDataStore;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.time.Duration;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.launchdarkly.sdk.server.TestComponents.clientContext;
+import static com.launchdarkly.sdk.server.integrations.CollectionHelpers.mapOf;
+import static com.launchdarkly.sdk.server.integrations.DynamoDbStoreImplBase.PARTITION_KEY;
+import static com.launchdarkly.sdk.server.integrations.DynamoDbStoreImplBase.SORT_KEY;
+import static com.launchdarkly.sdk.server.integrations.TestUtils.TABLE_NAME;
 import static com.launchdarkly.sdk.server.integrations.TestUtils.baseDataStoreBuilder;
 import static com.launchdarkly.sdk.server.integrations.TestUtils.clearEverything;
 import static com.launchdarkly.sdk.server.integrations.TestUtils.createTableIfNecessary;
+import static com.launchdarkly.sdk.server.integrations.TestUtils.createTestClient;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
 
 /**
  * Runs the standard database data store test suite that's defined in the Java SDK.
@@ -82,6 +113,413 @@ public class DynamoDbDataStoreImplTest extends PersistentDataStoreTestBase<Dynam
     dataStoreSkipsAndLogsTooLargeItemOnUpsert(DataModel.SEGMENTS);
   }
 
+  @Test
+  public void initWithConcurrentBatchWritesStoresAllItems() throws Exception {
+    FullDataSet<SerializedItemDescriptor> data = makeManyItemsData(300);
+    try (PersistentDataStore store = baseDataStoreBuilder().maxInFlightBatchWrites(4).build(makeClientContext())) {
+      store.init(data);
+
+      assertThat(store.isInitialized(), is(true));
+      assertDataSetsEqual(data, getAllData(store));
+    }
+  }
+
+  @Test
+  public void eventuallyConsistentReadsReturnStoredData() throws Exception {
+    FullDataSet<SerializedItemDescriptor> data = makeGoodData();
+    try (PersistentDataStore store = baseDataStoreBuilder()
+        .eventuallyConsistentReads(ReadOperation.GET, ReadOperation.GET_ALL, ReadOperation.IS_INITIALIZED)
+        .build(makeClientContext())) {
+      store.init(data);
+
+      assertThat(store.isInitialized(), is(true));
+      assertThat(store.get(DataModel.FEATURES, "flag1").getVersion(), is(1));
+      assertDataSetsEqual(data, getAllData(store));
+    }
+  }
+
+  @Test
+  public void compressedItemsCanBeReadWithOrWithoutCompressionEnabled() throws Exception {
+    FullDataSet<SerializedItemDescriptor> data = makeGoodData();
+    try (PersistentDataStore store = baseDataStoreBuilder().itemCompressionThreshold(0).build(makeClientContext())) {
+      store.init(data);
+      assertDataSetsEqual(data, getAllData(store));
+    }
+    try (PersistentDataStore store = baseDataStoreBuilder().build(makeClientContext())) {
+      assertDataSetsEqual(data, getAllData(store));
+      assertThat(store.get(DataModel.FEATURES, "flag1").getSerializedItem(),
+          is("{\"key\": \"flag1\", \"version\": 1}"));
+    }
+  }
+
+  @Test
+  public void tooLargeItemCanBeStoredWithCompression() throws Exception {
+    SerializedItemDescriptor bigItem = makeTooBigItem(DataModel.SEGMENTS);
+    try (PersistentDataStore store = baseDataStoreBuilder().itemCompressionThreshold(1024).build(makeClientContext())) {
+      store.init(makeGoodData());
+      assertThat(store.upsert(DataModel.SEGMENTS, BAD_ITEM_KEY, bigItem), is(true));
+      assertThat(store.get(DataModel.SEGMENTS, BAD_ITEM_KEY), is(bigItem));
+    }
+  }
+
+  @Test
+  public void tooLargeItemCanBeStoredInChunks() throws Exception {
+    SerializedItemDescriptor bigItem = makeTooBigItem(DataModel.FEATURES);
+    FullDataSet<SerializedItemDescriptor> goodData = makeGoodData();
+    FullDataSet<SerializedItemDescriptor> data = makeGoodDataPlusFlag(BAD_ITEM_KEY, bigItem);
+
+    try (PersistentDataStore store = baseDataStoreBuilder().chunkLargeItems(true).build(makeClientContext())) {
+      store.init(data);
+      assertDataSetsEqual(data, getAllData(store));
+      assertThat(store.get(DataModel.FEATURES, BAD_ITEM_KEY), is(bigItem));
+
+      SerializedItemDescriptor bigItemV2 = new SerializedItemDescriptor(2, false, bigItem.getSerializedItem() + " ");
+      assertThat(store.upsert(DataModel.FEATURES, BAD_ITEM_KEY, bigItemV2), is(true));
+      assertThat(store.get(DataModel.FEATURES, BAD_ITEM_KEY), is(bigItemV2));
+      assertThat(store.upsert(DataModel.FEATURES, BAD_ITEM_KEY, bigItem), is(false));
+      assertThat(store.get(DataModel.FEATURES, BAD_ITEM_KEY), is(bigItemV2));
+
+      store.init(goodData);
+      assertDataSetsEqual(goodData, getAllData(store));
+    }
+  }
+
+  @Test
+  public void initCanSkipItemsWhoseVersionHasNotChanged() throws Exception {
+    FullDataSet<SerializedItemDescriptor> data = makeGoodData();
+    try (PersistentDataStore store = baseDataStoreBuilder().skipUnchangedItemsOnInit(true).build(makeClientContext())) {
+      store.init(data);
+      assertDataSetsEqual(data, getAllData(store));
+
+      // Same versions with different data proves that the unchanged items weren't rewritten;
+      // that can't happen with real LaunchDarkly data.
+      SerializedItemDescriptor sameVersion = new SerializedItemDescriptor(1, false, "{\"key\": \"flag1\", \"version\": 1, \"x\": 1}");
+      SerializedItemDescriptor newVersion = new SerializedItemDescriptor(3, false, "{\"key\": \"flag2\", \"version\": 3}");
+      FullDataSet<SerializedItemDescriptor> newData = new FullDataSet<SerializedItemDescriptor>(ImmutableList.of(
+          new SimpleEntry<>(DataModel.FEATURES,
+              new KeyedItems<SerializedItemDescriptor>(ImmutableList.of(
+                  new SimpleEntry<>("flag1", sameVersion),
+                  new SimpleEntry<>("flag2", newVersion)))),
+          new SimpleEntry<>(DataModel.SEGMENTS,
+              new KeyedItems<SerializedItemDescriptor>(ImmutableList.<Map.Entry<String, SerializedItemDescriptor>>of()))));
+      store.init(newData);
+
+      assertThat(store.get(DataModel.FEATURES, "flag1").getSerializedItem(),
+          is("{\"key\": \"flag1\", \"version\": 1}"));
+      assertThat(store.get(DataModel.FEATURES, "flag2"), is(newVersion));
+      assertThat(store.getAll(DataModel.SEGMENTS).getItems().iterator().hasNext(), is(false));
+    }
+  }
+
+  @Test
+  public void bulkLoadReadsAllKindsWithParallelScan() throws Exception {
+    FullDataSet<SerializedItemDescriptor> data = makeGoodData();
+    try (PersistentDataStore store = baseDataStoreBuilder().build(makeClientContext())) {
+      store.init(data);
+    }
+    try (PersistentDataStore store = baseDataStoreBuilder().bulkLoadScanSegments(3).build(makeClientContext())) {
+      assertDataSetsEqual(data, getAllData(store));
+    }
+    try (PersistentDataStore store = baseDataStoreBuilder().bulkLoadScanSegments(3).build(makeClientContext())) {
+      store.getAll(DataModel.FEATURES);
+      // A write discards the scanned results for the other kinds, so this must see the new item
+      SerializedItemDescriptor newItem = new SerializedItemDescriptor(1, false, "{\"key\": \"newseg\"}");
+      store.upsert(DataModel.SEGMENTS, "newseg", newItem);
+      assertThat(Iterables.size(store.getAll(DataModel.SEGMENTS).getItems()), is(3));
+    }
+  }
+
+  @Test
+  public void writeDuringBulkLoadDiscardsScannedResults() throws Exception {
+    try (PersistentDataStore store = baseDataStoreBuilder().build(makeClientContext())) {
+      store.init(makeGoodData());
+    }
+    DynamoDbClient realClient = createTestClient();
+    PersistentDataStore[] storeHolder = new PersistentDataStore[1];
+    AtomicBoolean scanned = new AtomicBoolean();
+    SerializedItemDescriptor newItem = new SerializedItemDescriptor(1, false, "{\"key\": \"newseg\"}");
+    // Does an upsert after the scan has read the table, but before the store has kept the results
+    DynamoDbClient client = new DynamoDbClient() {
+      @Override
+      public ScanResponse scan(ScanRequest request) {
+        ScanResponse resp = realClient.scan(request);
+        if (!scanned.getAndSet(true)) {
+          storeHolder[0].upsert(DataModel.SEGMENTS, "newseg", newItem);
+        }
+        return resp;
+      }
+
+      @Override
+      public PutItemResponse putItem(PutItemRequest request) {
+        return realClient.putItem(request);
+      }
+
+      @Override
+      public QueryResponse query(QueryRequest request) {
+        return realClient.query(request);
+      }
+
+      @Override
+      public String serviceName() {
+        return realClient.serviceName();
+      }
+
+      @Override
+      public void close() {}
+    };
+    try (PersistentDataStore store = baseDataStoreBuilder().existingClient(client).bulkLoadScanSegments(1)
+        .build(makeClientContext())) {
+      storeHolder[0] = store;
+      store.getAll(DataModel.FEATURES);
+      assertThat(scanned.get(), is(true));
+      assertThat(Iterables.size(store.getAll(DataModel.SEGMENTS).getItems()), is(3));
+    }
+  }
+
+  @Test
+  public void writeBehindModeWritesNewestVersionOnClose() throws Exception {
+    try (PersistentDataStore store = baseDataStoreBuilder().build(makeClientContext())) {
+      store.init(makeGoodData());
+    }
+    try (PersistentDataStore store = baseDataStoreBuilder().writeBehindWindow(Duration.ofMinutes(1))
+        .build(makeClientContext())) {
+      assertThat(store.upsert(DataModel.FEATURES, "flag1", new SerializedItemDescriptor(3, false, "{\"v\": 3}")), is(true));
+      assertThat(store.upsert(DataModel.FEATURES, "flag1", new SerializedItemDescriptor(2, false, "{\"v\": 2}")), is(false));
+      // not written yet, but this store can see it
+      assertThat(store.get(DataModel.FEATURES, "flag1").getVersion(), is(3));
+      try (PersistentDataStore other = baseDataStoreBuilder().build(makeClientContext())) {
+        assertThat(other.get(DataModel.FEATURES, "flag1").getVersion(), is(1));
+      }
+    }
+    try (PersistentDataStore store = baseDataStoreBuilder().build(makeClientContext())) {
+      assertThat(store.get(DataModel.FEATURES, "flag1").getSerializedItem(), is("{\"v\": 3}"));
+    }
+  }
+
+  @Test
+  public void versionsCanBeReadWithoutItemData() throws Exception {
+    try (DynamoDbDataStore store = (DynamoDbDataStore)baseDataStoreBuilder().build(makeClientContext())) {
+      store.init(makeGoodData());
+      store.upsert(DataModel.FEATURES, "flag2", new SerializedItemDescriptor(4, true, null));
+      assertThat(store.getVersion(DataModel.FEATURES, "flag1"), is(1));
+      assertThat(store.getVersion(DataModel.FEATURES, "flag2"), is(4));
+      assertThat(store.getVersion(DataModel.FEATURES, "nope"), nullValue());
+      assertThat(store.getVersions(DataModel.FEATURES), is(ImmutableMap.of("flag1", 1, "flag2", 4)));
+    }
+  }
+
+  @Test
+  public void failedReplicaWriteDoesNotFailUpsert() throws Exception {
+    DynamoDbClient realClient = createTestClient();
+    AtomicInteger replicaFailures = new AtomicInteger();
+    AtomicBoolean throttleReplicaOnce = new AtomicBoolean();
+    DynamoDbClient client = new DynamoDbClient() {
+      @Override
+      public PutItemResponse putItem(PutItemRequest request) {
+        if (request.item().get(PARTITION_KEY).s().contains("$replica")) {
+          if (throttleReplicaOnce.getAndSet(false)) {
+            throw ProvisionedThroughputExceededException.builder().message("slow down").build();
+          }
+          if (replicaFailures.get() > 0) {
+            replicaFailures.decrementAndGet();
+            throw DynamoDbException.builder().message("sorry").statusCode(500).build();
+          }
+        }
+        return realClient.putItem(request);
+      }
+
+      @Override
+      public GetItemResponse getItem(GetItemRequest request) {
+        return realClient.getItem(request);
+      }
+
+      @Override
+      public QueryResponse query(QueryRequest request) {
+        return realClient.query(request);
+      }
+
+      @Override
+      public BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+        return realClient.batchWriteItem(request);
+      }
+
+      @Override
+      public String serviceName() {
+        return realClient.serviceName();
+      }
+
+      @Override
+      public void close() {}
+    };
+    DynamoDbHistogramMetrics metrics = new DynamoDbHistogramMetrics();
+    try (PersistentDataStore store = baseDataStoreBuilder().existingClient(client).hotItemReplicas(2, "flag1")
+        .metrics(metrics).build(makeClientContext())) {
+      store.init(makeGoodData());
+
+      replicaFailures.set(2);
+      assertThat(store.upsert(DataModel.FEATURES, "flag1", new SerializedItemDescriptor(2, false, "{\"v\": 2}")),
+          is(true));
+      assertThat(metrics.getReplicaWriteFailureCount(DynamoDbStoreMetrics.Operation.UPSERT), is(2L));
+      assertThat(readItem(realClient, "features$replica1", "flag1").get("version").n(), is("1"));
+      // This store doesn't read the stale replicas
+      assertThat(store.get(DataModel.FEATURES, "flag1").getSerializedItem(), is("{\"v\": 2}"));
+
+      // The next write updates them, retrying if it is throttled
+      throttleReplicaOnce.set(true);
+      assertThat(store.upsert(DataModel.FEATURES, "flag1", new SerializedItemDescriptor(3, false, "{\"v\": 3}")),
+          is(true));
+      assertThat(metrics.getThrottleCount(DynamoDbStoreMetrics.Operation.UPSERT), is(1L));
+      for (int i = 1; i <= 2; i++) {
+        assertThat(readItem(realClient, "features$replica" + i, "flag1").get("version").n(), is("3"));
+      }
+      assertThat(store.get(DataModel.FEATURES, "flag1").getSerializedItem(), is("{\"v\": 3}"));
+    }
+  }
+
+  @Test
+  public void unchangedChunkedHotItemKeepsReplicasOfStoredManifest() throws Exception {
+    DynamoDbClient client = createTestClient();
+    SerializedItemDescriptor bigItem = makeTooBigItem(DataModel.FEATURES);
+    FullDataSet<SerializedItemDescriptor> data = makeGoodDataPlusFlag(BAD_ITEM_KEY, bigItem);
+    try (PersistentDataStore store = baseDataStoreBuilder().chunkLargeItems(true).skipUnchangedItemsOnInit(true)
+        .hotItemReplicas(2, BAD_ITEM_KEY).build(makeClientContext())) {
+      store.init(data);
+      store.init(data); // the big item is skipped, but its replicas are rewritten
+
+      String chunkSet = readItem(client, "features", BAD_ITEM_KEY).get("chunkSet").s();
+      for (int i = 1; i <= 2; i++) {
+        assertThat(readItem(client, "features$replica" + i, BAD_ITEM_KEY).get("chunkSet").s(), is(chunkSet));
+      }
+      // The replicas can be read without the original manifest, so their chunks exist
+      client.deleteItem(DeleteItemRequest.builder().tableName(TABLE_NAME).key(mapOf(
+          PARTITION_KEY, AttributeValue.builder().s("features").build(),
+          SORT_KEY, AttributeValue.builder().s(BAD_ITEM_KEY).build())).build());
+      assertThat(store.get(DataModel.FEATURES, BAD_ITEM_KEY), is(bigItem));
+    }
+  }
+
+  @Test
+  public void hotItemsAreReadFromReplicas() throws Exception {
+    DynamoDbClient client = createTestClient();
+    try (PersistentDataStore store = baseDataStoreBuilder().hotItemReplicas(2, "flag1").build(makeClientContext())) {
+      store.init(makeGoodData());
+      for (int i = 1; i <= 2; i++) {
+        assertThat(readItem(client, "features$replica" + i, "flag1").get("version").n(), is("1"));
+        assertThat(readItem(client, "$inited$replica" + i, "$inited").isEmpty(), is(false));
+      }
+      assertThat(readItem(client, "features$replica1", "flag2").isEmpty(), is(true));
+
+      // Reads go to a replica rather than the original item
+      for (int i = 1; i <= 2; i++) {
+        client.putItem(PutItemRequest.builder().tableName(TABLE_NAME).item(mapOf(
+            PARTITION_KEY, AttributeValue.builder().s("features$replica" + i).build(),
+            SORT_KEY, AttributeValue.builder().s("flag1").build(),
+            "version", AttributeValue.builder().n("1").build(),
+            "item", AttributeValue.builder().s("{\"replica\": true}").build())).build());
+      }
+      assertThat(store.get(DataModel.FEATURES, "flag1").getSerializedItem(), is("{\"replica\": true}"));
+
+      store.upsert(DataModel.FEATURES, "flag1", new SerializedItemDescriptor(2, false, "{\"version\": 2}"));
+      assertThat(store.get(DataModel.FEATURES, "flag1").getSerializedItem(), is("{\"version\": 2}"));
+
+      // A missing replica falls back to the original
+      for (int i = 1; i <= 2; i++) {
+        client.deleteItem(DeleteItemRequest.builder().tableName(TABLE_NAME).key(mapOf(
+            PARTITION_KEY, AttributeValue.builder().s("features$replica" + i).build(),
+            SORT_KEY, AttributeValue.builder().s("flag1").build())).build());
+      }
+      assertThat(store.get(DataModel.FEATURES, "flag1").getSerializedItem(), is("{\"version\": 2}"));
+      assertThat(store.isInitialized(), is(true));
+
+      // An init without the hot item deletes its replicas
+      store.upsert(DataModel.FEATURES, "flag1", new SerializedItemDescriptor(3, false, "{\"version\": 3}"));
+      assertThat(readItem(client, "features$replica2", "flag1").get("version").n(), is("3"));
+      store.init(new FullDataSet<SerializedItemDescriptor>(ImmutableList.of(
+          new SimpleEntry<>(DataModel.FEATURES, new KeyedItems<SerializedItemDescriptor>(ImmutableList.of())))));
+      assertThat(readItem(client, "features$replica1", "flag1").isEmpty(), is(true));
+      assertThat(readItem(client, "features$replica2", "flag1").isEmpty(), is(true));
+      assertThat(store.get(DataModel.FEATURES, "flag1"), nullValue());
+    }
+  }
+
+  @Test
+  public void concurrentRequestsUseProvidedExecutor() throws Exception {
+    FullDataSet<SerializedItemDescriptor> data = makeManyItemsData(300);
+    AtomicInteger tasks = new AtomicInteger();
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    try (PersistentDataStore store = baseDataStoreBuilder().maxInFlightBatchWrites(4).parallelQueries(true)
+        .executor(r -> {
+          tasks.incrementAndGet();
+          pool.execute(r);
+        }).build(makeClientContext())) {
+      store.init(data);
+      assertDataSetsEqual(data, getAllData(store));
+      assertThat(tasks.get(), greaterThan(0));
+    } finally {
+      pool.shutdown();
+    }
+    // Falls back to platform threads if the runtime doesn't have virtual threads
+    try (PersistentDataStore store = baseDataStoreBuilder().maxInFlightBatchWrites(4).virtualThreads(true)
+        .build(makeClientContext())) {
+      store.init(data);
+      assertDataSetsEqual(data, getAllData(store));
+    }
+  }
+
+  @Test
+  public void httpClientCanBeConfigured() throws Exception {
+    FullDataSet<SerializedItemDescriptor> data = makeGoodData();
+    try (PersistentDataStore store = baseDataStoreBuilder().httpClient(DynamoDbStoreBuilder.HttpClientType.URL_CONNECTION)
+        .connectionTimeout(Duration.ofSeconds(5)).socketTimeout(Duration.ofSeconds(5)).build(makeClientContext())) {
+      store.init(data);
+      assertDataSetsEqual(data, getAllData(store));
+    }
+    try (PersistentDataStore store = baseDataStoreBuilder().maxConnections(2).connectionTimeToLive(Duration.ofMinutes(1))
+        .useIdleConnectionReaper(false).build(makeClientContext())) {
+      assertDataSetsEqual(data, getAllData(store));
+    }
+  }
+
+  @Test
+  public void initializedStateCanBeCached() throws Exception {
+    AtomicLong now = new AtomicLong();
+    DynamoDbStoreBuilder<PersistentDataStore> builder = baseDataStoreBuilder()
+        .initializedCacheTime(Duration.ofMillis(500));
+    try (PersistentDataStore store = new DynamoDbDataStoreImpl(builder.makeClient(), builder,
+        makeClientContext().getBaseLogger(), now::get)) {
+      store.init(makeGoodData());
+      clearEverything(null);
+      now.addAndGet(Duration.ofMillis(499).toNanos());
+      assertThat(store.isInitialized(), is(true));
+
+      now.addAndGet(Duration.ofMillis(1).toNanos());
+      assertThat(store.isInitialized(), is(false));
+    }
+  }
+
+  @Test
+  public void metricsAreReportedForEachOperation() throws Exception {
+    DynamoDbHistogramMetrics metrics = new DynamoDbHistogramMetrics();
+    FullDataSet<SerializedItemDescriptor> data = makeGoodData();
+    try (PersistentDataStore store = baseDataStoreBuilder().metrics(metrics).build(makeClientContext())) {
+      store.init(data);
+      store.get(DataModel.FEATURES, "flag1");
+      store.getAll(DataModel.FEATURES);
+      store.upsert(DataModel.FEATURES, "flag1", new SerializedItemDescriptor(5, false, "{\"key\": \"flag1\"}"));
+      store.isInitialized();
+    }
+    for (DynamoDbStoreMetrics.Operation op: new DynamoDbStoreMetrics.Operation[] {
+        DynamoDbStoreMetrics.Operation.INIT, DynamoDbStoreMetrics.Operation.GET,
+        DynamoDbStoreMetrics.Operation.GET_ALL, DynamoDbStoreMetrics.Operation.UPSERT,
+        DynamoDbStoreMetrics.Operation.IS_INITIALIZED }) {
+      assertThat(op.name(), metrics.getCount(op), is(1L));
+      assertThat(op.name(), metrics.getErrorCount(op), is(0L));
+      assertThat(op.name(), metrics.getLatencyPercentile(op, 50).toNanos(), greaterThan(0L));
+    }
+    assertThat(metrics.getItemSizePercentile(DynamoDbStoreMetrics.Operation.UPSERT, 50), greaterThan(100L));
+    assertThat(metrics.getCount(DynamoDbStoreMetrics.Operation.GET_MEMBERSHIP), is(0L));
+  }
+
   private void dataStoreSkipsAndLogsTooLargeItemOnInit(
       DataKind dataKind,
       int collIndex
@@ -132,6 +570,23 @@ public class DynamoDbDataStoreImplTest extends PersistentDataStoreTestBase<Dynam
     return clientContext("", baseConfig().build());
   }
 
+  private static Map<String, AttributeValue> readItem(DynamoDbClient client, String namespace, String key) {
+    return client.getItem(GetItemRequest.builder().tableName(TABLE_NAME).consistentRead(true).key(mapOf(
+        PARTITION_KEY, AttributeValue.builder().s(namespace).build(),
+        SORT_KEY, AttributeValue.builder().s(key).build())).build()).item();
+  }
+
+  private static FullDataSet<SerializedItemDescriptor> makeGoodDataPlusFlag(String key,
+      SerializedItemDescriptor item) {
+    List<Map.Entry<DataKind, KeyedItems<SerializedItemDescriptor>>> data =
+        Lists.newArrayList(makeGoodData().getData());
+    List<Map.Entry<String, SerializedItemDescriptor>> flags = Lists.newArrayList(
+        data.get(0).getValue().getItems());
+    flags.add(0, new SimpleEntry<>(key, item));
+    data.set(0, new SimpleEntry<>(DataModel.FEATURES, new KeyedItems<>(flags)));
+    return new FullDataSet<>(data);
+  }
+
   private static FullDataSet<SerializedItemDescriptor> makeGoodData() {
     return new FullDataSet<SerializedItemDescriptor>(ImmutableList.of(
          new SimpleEntry<>(DataModel.FEATURES,
@@ -151,6 +606,20 @@ public class DynamoDbDataStoreImplTest extends PersistentDataStoreTestBase<Dynam
          ));
   }
 
+  private static FullDataSet<SerializedItemDescriptor> makeManyItemsData(int count) {
+    List<Map.Entry<String, SerializedItemDescriptor>> flags = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      String key = String.format("flag%04d", i); // so that the keys are in the order DynamoDB returns them
+      flags.add(new SimpleEntry<>(key,
+          new SerializedItemDescriptor(1, false, "{\"key\": \"" + key + "\", \"version\": 1}")));
+    }
+    return new FullDataSet<SerializedItemDescriptor>(ImmutableList.of(
+        new SimpleEntry<>(DataModel.FEATURES, new KeyedItems<SerializedItemDescriptor>(flags)),
+        new SimpleEntry<>(DataModel.SEGMENTS, new KeyedItems<SerializedItemDescriptor>(
+            ImmutableList.<Map.Entry<String, SerializedItemDescriptor>>of()))
+        ));
+  }
+
   private static SerializedItemDescriptor makeTooBigItem(DataKind dataKind) {
     StringBuilder tooBigKeysListJson = new StringBuilder().append('[');
     for (int i = 0; i < 40000; i++) {
@@ -176,7 +645,8 @@ public class DynamoDbDataStoreImplTest extends PersistentDataStoreTestBase<Dynam
   private static FullDataSet<SerializedItemDescriptor> getAllData(PersistentDataStore store) {
     List<Map.Entry<DataKind, KeyedItems<SerializedItemDescriptor>>> colls = new ArrayList<>();
     for (DataKind kind: new DataKind[] { DataModel.FEATURES, DataModel.SEGMENTS }) {
-      KeyedItems<SerializedItemDescriptor> items = store.getAll(kind);
+      // copied into a list, since with streamingGetAll the items are a lazily read Iterable
+      KeyedItems<SerializedItemDescriptor> items = new KeyedItems<>(Lists.newArrayList(store.getAll(kind).getItems()));
       colls.add(new SimpleEntry<>(kind, items));
     }
     return new FullDataSet<>(colls);
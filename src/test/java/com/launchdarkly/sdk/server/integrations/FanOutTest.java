@@ -0,0 +1,97 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.fail;
+
+@SuppressWarnings("javadoc")
+public class FanOutTest {
+  @Test
+  public void returnsResultsInTaskOrder() throws Exception {
+    List<Supplier<CompletableFuture<Integer>>> tasks = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      int n = i;
+      tasks.add(() -> CompletableFuture.completedFuture(n));
+    }
+    List<Integer> results = FanOut.run(tasks, new CongestionWindow(3), FanOut.DIRECT).get();
+    assertThat(results, equalTo(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9)));
+  }
+
+  @Test
+  public void emptyTaskListCompletesImmediately() throws Exception {
+    List<Supplier<CompletableFuture<Integer>>> tasks = new ArrayList<>();
+    assertThat(FanOut.run(tasks, new CongestionWindow(3), FanOut.DIRECT).get().size(), equalTo(0));
+  }
+
+  @Test
+  public void manySynchronousTasksDoNotOverflowStack() throws Exception {
+    List<Supplier<CompletableFuture<Integer>>> tasks = new ArrayList<>();
+    for (int i = 0; i < 100000; i++) {
+      tasks.add(() -> CompletableFuture.completedFuture(1));
+    }
+    assertThat(FanOut.run(tasks, new CongestionWindow(1), FanOut.DIRECT).get().size(), equalTo(100000));
+  }
+
+  @Test
+  public void neverExceedsWindowSize() throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(10);
+    try {
+      AtomicInteger current = new AtomicInteger();
+      AtomicInteger highest = new AtomicInteger();
+      List<Supplier<CompletableFuture<Integer>>> tasks = new ArrayList<>();
+      for (int i = 0; i < 50; i++) {
+        tasks.add(() -> {
+          int n = current.incrementAndGet();
+          highest.accumulateAndGet(n, Math::max);
+          try {
+            Thread.sleep(2);
+          } catch (InterruptedException e) {}
+          current.decrementAndGet();
+          return CompletableFuture.completedFuture(n);
+        });
+      }
+      FanOut.run(tasks, new CongestionWindow(3), pool).get();
+      assertThat(highest.get(), lessThanOrEqualTo(3));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void stopsStartingTasksAfterFailure() throws Exception {
+    RuntimeException error = new RuntimeException("sorry");
+    AtomicInteger started = new AtomicInteger();
+    List<Supplier<CompletableFuture<Integer>>> tasks = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      int n = i;
+      tasks.add(() -> {
+        started.incrementAndGet();
+        if (n == 2) {
+          throw error;
+        }
+        return CompletableFuture.completedFuture(n);
+      });
+    }
+    try {
+      FanOut.run(tasks, new CongestionWindow(1), FanOut.DIRECT).get();
+      fail("expected exception");
+    } catch (ExecutionException e) {
+      assertThat(DynamoDbClientAdapter.asUnchecked(e), sameInstance(error));
+    }
+    assertThat(started.get(), equalTo(3));
+  }
+}
@@ -0,0 +1,68 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+@SuppressWarnings("javadoc")
+public class InFlightRequestsTest {
+  private final InFlightRequests<String, String> requests = new InFlightRequests<>();
+  private final AtomicInteger loads = new AtomicInteger();
+
+  @Test
+  public void concurrentCallersForSameKeyShareOneRequest() throws Exception {
+    CompletableFuture<String> pending = new CompletableFuture<>();
+    CompletableFuture<String> f1 = requests.get("a", () -> load(pending));
+    CompletableFuture<String> f2 = requests.get("a", () -> load(pending));
+    assertThat(f2, sameInstance(f1));
+    assertThat(loads.get(), equalTo(1));
+
+    pending.complete("value");
+    assertThat(f1.get(), equalTo("value"));
+    assertThat(f2.get(), equalTo("value"));
+  }
+
+  @Test
+  public void differentKeysDoNotShareRequests() {
+    requests.get("a", () -> load(new CompletableFuture<>()));
+    requests.get("b", () -> load(new CompletableFuture<>()));
+    assertThat(loads.get(), equalTo(2));
+  }
+
+  @Test
+  public void callerAfterCompletionStartsNewRequest() throws Exception {
+    requests.get("a", () -> load(CompletableFuture.completedFuture("first"))).get();
+    assertThat(requests.get("a", () -> load(CompletableFuture.completedFuture("second"))).get(),
+        equalTo("second"));
+    assertThat(loads.get(), equalTo(2));
+  }
+
+  @Test
+  public void failureIsSharedAndThenForgotten() throws Exception {
+    CompletableFuture<String> pending = new CompletableFuture<>();
+    CompletableFuture<String> f1 = requests.get("a", () -> load(pending));
+    pending.completeExceptionally(new RuntimeException("sorry"));
+    assertThat(f1.isCompletedExceptionally(), equalTo(true));
+    assertThat(requests.get("a", () -> load(CompletableFuture.completedFuture("ok"))).get(), equalTo("ok"));
+  }
+
+  @Test
+  public void invalidateStopsNewCallersFromJoining() {
+    CompletableFuture<String> f1 = requests.get("a", () -> load(new CompletableFuture<>()));
+    requests.invalidate("a");
+    CompletableFuture<String> f2 = requests.get("a", () -> load(new CompletableFuture<>()));
+    assertThat(f2, not(sameInstance(f1)));
+    assertThat(loads.get(), equalTo(2));
+  }
+
+  private CompletableFuture<String> load(CompletableFuture<String> result) {
+    loads.incrementAndGet();
+    return result;
+  }
+}
@@ -0,0 +1,57 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import com.google.common.collect.ImmutableMap;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+@SuppressWarnings("javadoc")
+public class ItemChunksTest {
+  @Test
+  public void splitProducesChunksThatReassembleToTheOriginalData() {
+    byte[] data = new byte[ItemChunks.CHUNK_SIZE * 2 + 10];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte)i;
+    }
+    List<SdkBytes> chunks = ItemChunks.split(data);
+    assertThat(chunks.size(), equalTo(3));
+    assertThat(chunks.get(2).asByteArray().length, equalTo(10));
+    byte[] joined = new byte[data.length];
+    int offset = 0;
+    for (SdkBytes chunk: chunks) {
+      byte[] b = chunk.asByteArray();
+      System.arraycopy(b, 0, joined, offset, b.length);
+      offset += b.length;
+    }
+    assertThat(joined, equalTo(data));
+  }
+
+  @Test
+  public void splitReturnsNullIfDataNeedsTooManyChunks() {
+    assertThat(ItemChunks.split(new byte[ItemChunks.CHUNK_SIZE * ItemChunks.MAX_CHUNKS + 1]), nullValue());
+  }
+
+  @Test
+  public void chunkKeysComeFromManifest() {
+    List<String> keys = ItemChunks.chunkKeys("flag1", ImmutableMap.of(
+        ItemChunks.CHUNK_COUNT_ATTRIBUTE, AttributeValue.builder().n("2").build(),
+        ItemChunks.CHUNK_SET_ATTRIBUTE, AttributeValue.builder().s("abc").build()));
+    assertThat(keys, contains("flag1#abc#0", "flag1#abc#1"));
+  }
+
+  @Test
+  public void itemWithoutChunkCountIsNotAManifest() {
+    assertThat(ItemChunks.chunkKeys("flag1", ImmutableMap.of(
+        "item", AttributeValue.builder().s("{}").build())), empty());
+  }
+}
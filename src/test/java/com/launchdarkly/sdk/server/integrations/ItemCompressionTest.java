@@ -0,0 +1,35 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+import software.amazon.awssdk.core.SdkBytes;
+
+@SuppressWarnings("javadoc")
+public class ItemCompressionTest {
+  @Test
+  public void roundTripPreservesNonAsciiText() {
+    String json = "{\"key\":\"fl\u00e4g\",\"values\":[\"\u65e5\u672c\",\"\ud83d\ude00\"]}";
+    assertThat(ItemCompression.gunzip(ItemCompression.gzip(json)), equalTo(json));
+  }
+
+  @Test
+  public void repetitiveJsonGetsMuchSmaller() {
+    StringBuilder sb = new StringBuilder("{\"included\":[");
+    for (int i = 0; i < 10000; i++) {
+      sb.append(i == 0 ? "" : ",").append("\"user-key-").append(i).append('"');
+    }
+    String json = sb.append("]}").toString();
+    SdkBytes compressed = ItemCompression.gzip(json);
+    assertThat(compressed.asByteArray().length, lessThan(json.length() / 4));
+    assertThat(ItemCompression.gunzip(compressed), equalTo(json));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void corruptDataThrowsIllegalStateException() {
+    ItemCompression.gunzip(SdkBytes.fromUtf8String("not gzip"));
+  }
+}
@@ -0,0 +1,64 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+@SuppressWarnings("javadoc")
+public class LockFreeHistogramTest {
+  @Test
+  public void emptyHistogramHasNoValues() {
+    LockFreeHistogram h = new LockFreeHistogram();
+    assertThat(h.count(), is(0L));
+    assertThat(h.percentile(50), is(0L));
+  }
+
+  @Test
+  public void smallValuesAreExact() {
+    LockFreeHistogram h = new LockFreeHistogram();
+    for (long i = 0; i < 16; i++) {
+      h.record(i);
+    }
+    assertThat(h.count(), is(16L));
+    assertThat(h.percentile(0), is(0L));
+    assertThat(h.percentile(100), is(15L));
+  }
+
+  @Test
+  public void percentilesAreWithinBucketPrecision() {
+    LockFreeHistogram h = new LockFreeHistogram();
+    for (long i = 1; i <= 10000; i++) {
+      h.record(i * 1000);
+    }
+    assertApproximately(h.percentile(50), 5000000);
+    assertApproximately(h.percentile(99), 9900000);
+    assertApproximately(h.percentile(100), 10000000);
+  }
+
+  @Test
+  public void negativeAndHugeValuesAreRecorded() {
+    LockFreeHistogram h = new LockFreeHistogram();
+    h.record(-5);
+    h.record(Long.MAX_VALUE);
+    assertThat(h.count(), is(2L));
+    assertThat(h.percentile(0), is(0L));
+    assertThat(h.percentile(100), greaterThanOrEqualTo(Long.MAX_VALUE - Long.MAX_VALUE / 16));
+  }
+
+  @Test
+  public void everyBucketMapsBackToAValueInIt() {
+    for (long v = 1; v > 0 && v < Long.MAX_VALUE / 3; v = v * 3 + 1) {
+      int bucket = LockFreeHistogram.bucketFor(v);
+      assertThat(LockFreeHistogram.bucketFor(LockFreeHistogram.valueFor(bucket)), is(bucket));
+    }
+  }
+
+  private static void assertApproximately(long actual, long expected) {
+    long tolerance = expected / 16;
+    assertThat(actual, allOf(greaterThanOrEqualTo(expected - tolerance), lessThanOrEqualTo(expected + tolerance)));
+  }
+}
@@ -0,0 +1,99 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import static com.launchdarkly.sdk.server.integrations.CollectionHelpers.mapOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+
+@SuppressWarnings("javadoc")
+public class PagedItemsTest {
+  private static final QueryRequest REQUEST = QueryRequest.builder().tableName("t").build();
+
+  // Three pages: a, b | c | d, e
+  private final List<QueryRequest> requests = new ArrayList<>();
+  private final Function<QueryRequest, CompletableFuture<QueryResponse>> query = req -> {
+    requests.add(req);
+    String start = req.exclusiveStartKey() == null || req.exclusiveStartKey().isEmpty() ? null :
+      req.exclusiveStartKey().get("k").s();
+    if (start == null) {
+      return CompletableFuture.completedFuture(page("b", "a", "b"));
+    } else if (start.equals("b")) {
+      return CompletableFuture.completedFuture(page("c", "c"));
+    }
+    return CompletableFuture.completedFuture(page(null, "d", "e"));
+  };
+
+  @Test
+  public void iteratesAllPages() {
+    PagedItems<String> items = new PagedItems<>(REQUEST, query.apply(REQUEST), query, false, PagedItemsTest::decode);
+    assertThat(Lists.newArrayList(items), contains("a", "b", "c", "d", "e"));
+    assertThat(requests.size(), is(3));
+  }
+
+  @Test
+  public void requestsPagesOnlyAsNeededWithoutPrefetch() {
+    PagedItems<String> items = new PagedItems<>(REQUEST, query.apply(REQUEST), query, false, PagedItemsTest::decode);
+    Iterator<String> it = items.iterator();
+    assertThat(it.next(), equalTo("a"));
+    assertThat(it.next(), equalTo("b"));
+    assertThat(requests.size(), is(1));
+    assertThat(it.next(), equalTo("c"));
+    assertThat(requests.size(), is(2));
+  }
+
+  @Test
+  public void requestsNextPageBeforeIteratingCurrentPageWithPrefetch() {
+    PagedItems<String> items = new PagedItems<>(REQUEST, query.apply(REQUEST), query, true, PagedItemsTest::decode);
+    Iterator<String> it = items.iterator();
+    assertThat(it.next(), equalTo("a"));
+    assertThat(requests.size(), is(2));
+  }
+
+  @Test
+  public void skipsItemsThatDecodeToNull() {
+    PagedItems<String> items = new PagedItems<>(REQUEST, query.apply(REQUEST), query, false,
+        item -> item.get("k").s().equals("c") ? null : decode(item));
+    assertThat(Lists.newArrayList(items), contains("a", "b", "d", "e"));
+  }
+
+  @Test
+  public void iteratingAgainRepeatsTheQuery() {
+    PagedItems<String> items = new PagedItems<>(REQUEST, query.apply(REQUEST), query, false, PagedItemsTest::decode);
+    assertThat(Lists.newArrayList(items), contains("a", "b", "c", "d", "e"));
+    assertThat(Lists.newArrayList(items), contains("a", "b", "c", "d", "e"));
+    assertThat(requests.size(), is(6));
+  }
+
+  private static String decode(Map<String, AttributeValue> item) {
+    return item.get("k").s();
+  }
+
+  private static QueryResponse page(String lastKey, String... keys) {
+    ImmutableList.Builder<Map<String, AttributeValue>> items = ImmutableList.builder();
+    for (String k: keys) {
+      items.add(mapOf("k", AttributeValue.builder().s(k).build()));
+    }
+    QueryResponse.Builder resp = QueryResponse.builder().items(items.build());
+    if (lastKey != null) {
+      resp.lastEvaluatedKey(mapOf("k", AttributeValue.builder().s(lastKey).build()));
+    }
+    return resp.build();
+  }
+}
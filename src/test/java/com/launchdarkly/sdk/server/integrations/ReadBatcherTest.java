@@ -0,0 +1,169 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import com.launchdarkly.logging.LDLogger;
+import com.launchdarkly.sdk.server.integrations.DynamoDbStoreMetrics.Operation;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.launchdarkly.sdk.server.integrations.CollectionHelpers.mapOf;
+import static com.launchdarkly.sdk.server.integrations.DynamoDbStoreImplBase.PARTITION_KEY;
+import static com.launchdarkly.sdk.server.integrations.DynamoDbStoreImplBase.SORT_KEY;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.Matchers.startsWith;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+
+@SuppressWarnings("javadoc")
+public class ReadBatcherTest {
+  private static final String TABLE = "table";
+
+  // The sort keys of each BatchGetItem request, and the thread that sent it
+  private final List<List<String>> requests = new CopyOnWriteArrayList<>();
+  private final List<String> requestThreads = new CopyOnWriteArrayList<>();
+  private final AtomicBoolean firstKeyUnprocessedOnce = new AtomicBoolean();
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "test-worker"));
+  private final List<ReadBatcher> batchers = new ArrayList<>();
+
+  private final DynamoDbClient client = new DynamoDbClient() {
+    @Override
+    public BatchGetItemResponse batchGetItem(BatchGetItemRequest request) {
+      List<Map<String, AttributeValue>> keys = request.requestItems().get(TABLE).keys();
+      List<String> sortKeys = new ArrayList<>();
+      for (Map<String, AttributeValue> k: keys) {
+        sortKeys.add(k.get(SORT_KEY).s());
+      }
+      requests.add(sortKeys);
+      requestThreads.add(Thread.currentThread().getName());
+      List<Map<String, AttributeValue>> items = new ArrayList<>();
+      List<Map<String, AttributeValue>> unprocessed = new ArrayList<>();
+      for (Map<String, AttributeValue> k: keys) {
+        String key = k.get(SORT_KEY).s();
+        if (key.startsWith("missing")) {
+          continue;
+        }
+        if (unprocessed.isEmpty() && firstKeyUnprocessedOnce.getAndSet(false)) {
+          unprocessed.add(k);
+          continue;
+        }
+        items.add(mapOf(PARTITION_KEY, k.get(PARTITION_KEY), SORT_KEY, k.get(SORT_KEY),
+            "value", AttributeValue.builder().s(key + "-value").build()));
+      }
+      BatchGetItemResponse.Builder resp = BatchGetItemResponse.builder().responses(mapOf(TABLE, items));
+      if (!unprocessed.isEmpty()) {
+        resp.unprocessedKeys(mapOf(TABLE, KeysAndAttributes.builder().keys(unprocessed).build()));
+      }
+      return resp.build();
+    }
+
+    @Override
+    public String serviceName() {
+      return "dynamodb";
+    }
+
+    @Override
+    public void close() {}
+  };
+
+  @After
+  public void tearDown() {
+    for (ReadBatcher b: batchers) {
+      b.close();
+    }
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void readsWithinWindowAreSentAsOneBatchFromExecutor() throws Exception {
+    ReadBatcher batcher = makeBatcher(50);
+    CompletableFuture<Map<String, AttributeValue>> a = batcher.get("features", "flag1");
+    CompletableFuture<Map<String, AttributeValue>> b = batcher.get("features", "flag2");
+    CompletableFuture<Map<String, AttributeValue>> c = batcher.get("features", "missing1");
+
+    assertThat(a.get(5, TimeUnit.SECONDS).get("value").s(), is("flag1-value"));
+    assertThat(b.get(5, TimeUnit.SECONDS).get("value").s(), is("flag2-value"));
+    assertThat(c.get(5, TimeUnit.SECONDS), nullValue());
+    assertThat(requests, contains(contains("flag1", "flag2", "missing1")));
+    assertThat(requestThreads, contains("test-worker")); // not the batcher's timer thread
+  }
+
+  @Test
+  public void fullBatchIsSentWithoutWaitingForWindow() throws Exception {
+    ReadBatcher batcher = makeBatcher(60000);
+    List<CompletableFuture<Map<String, AttributeValue>>> results = new ArrayList<>();
+    for (int i = 0; i < ReadBatcher.MAX_BATCH_SIZE + 50; i++) {
+      results.add(batcher.get("features", "flag" + i));
+    }
+
+    assertThat(requests, hasSize(1));
+    assertThat(requests.get(0), hasSize(ReadBatcher.MAX_BATCH_SIZE));
+    for (int i = 0; i < ReadBatcher.MAX_BATCH_SIZE; i++) {
+      assertThat(results.get(i).isDone(), is(true));
+    }
+    assertThat(results.get(ReadBatcher.MAX_BATCH_SIZE).isDone(), is(false));
+
+    batcher.close(); // sends the rest rather than leaving them waiting
+    assertThat(requests, hasSize(2));
+    assertThat(requests.get(1), hasSize(50));
+    assertThat(results.get(ReadBatcher.MAX_BATCH_SIZE + 49).get(5, TimeUnit.SECONDS).get("value").s(),
+        is("flag149-value"));
+  }
+
+  @Test
+  public void readsOfSameKeyInOneBatchShareResult() throws Exception {
+    ReadBatcher batcher = makeBatcher(60000);
+    CompletableFuture<Map<String, AttributeValue>> a = batcher.get("features", "flag1");
+    CompletableFuture<Map<String, AttributeValue>> b = batcher.get("features", "flag1");
+    CompletableFuture<Map<String, AttributeValue>> c = batcher.get("segments", "flag1");
+    assertThat(b, sameInstance(a));
+    assertThat(c, not(sameInstance(a)));
+
+    batcher.close();
+    assertThat(requests, contains(contains("flag1", "flag1"))); // one key per namespace
+    assertThat(a.get(5, TimeUnit.SECONDS).get(PARTITION_KEY).s(), is("features"));
+    assertThat(c.get(5, TimeUnit.SECONDS).get(PARTITION_KEY).s(), is("segments"));
+  }
+
+  @Test
+  public void unprocessedKeysAreRetried() throws Exception {
+    firstKeyUnprocessedOnce.set(true);
+    ReadBatcher batcher = makeBatcher(10);
+    CompletableFuture<Map<String, AttributeValue>> a = batcher.get("features", "flag1");
+    CompletableFuture<Map<String, AttributeValue>> b = batcher.get("features", "flag2");
+
+    assertThat(b.get(5, TimeUnit.SECONDS).get("value").s(), is("flag2-value"));
+    assertThat(a.get(5, TimeUnit.SECONDS).get("value").s(), is("flag1-value"));
+    assertThat(requests, contains(contains("flag1", "flag2"), contains("flag1")));
+    for (String thread: requestThreads) {
+      assertThat(thread, not(startsWith("LaunchDarkly-DynamoDb-ReadBatcher")));
+    }
+  }
+
+  private ReadBatcher makeBatcher(long windowMillis) {
+    ReadBatcher batcher = new ReadBatcher(DynamoDbClientAdapter.of(client, false), TABLE,
+        ns -> AttributeValue.builder().s(ns).build(), windowMillis, true, executor, StoreMetrics.NONE,
+        Operation.GET, LDLogger.none());
+    batchers.add(batcher);
+    return batcher;
+  }
+}
@@ -0,0 +1,128 @@
+package com.launchdarkly.sdk.server.integrations;
+
+import com.launchdarkly.logging.LDLogger;
+import com.launchdarkly.sdk.server.DataModel;
+import com.launchdarkly.sdk.server.subsystems.DataStoreTypes.SerializedItemDescriptor;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+@SuppressWarnings("javadoc")
+public class UpsertBufferTest {
+  private final List<String> written = new CopyOnWriteArrayList<>();
+  private final AtomicBoolean failWrites = new AtomicBoolean();
+  private final UpsertBuffer buffer = new UpsertBuffer((kind, key, item) -> {
+    if (failWrites.get()) {
+      return DynamoDbClientAdapter.failedFuture(new RuntimeException("sorry"));
+    }
+    written.add(key + ":" + item.getVersion());
+    return CompletableFuture.completedFuture(true);
+  }, 60000, FanOut.DIRECT, LDLogger.none());
+
+  @After
+  public void tearDown() {
+    failWrites.set(false);
+    buffer.close();
+  }
+
+  @Test
+  public void keepsOnlyHighestVersionOfEachItem() {
+    assertThat(buffer.add(DataModel.FEATURES, "features", "flag1", item(2)), is(true));
+    assertThat(buffer.add(DataModel.FEATURES, "features", "flag1", item(3)), is(true));
+    assertThat(buffer.add(DataModel.FEATURES, "features", "flag1", item(1)), is(false));
+    assertThat(buffer.add(DataModel.FEATURES, "features", "flag1", item(3)), is(false));
+    assertThat(buffer.get("features", "flag1").item.getVersion(), is(3));
+
+    buffer.flush().join();
+    assertThat(written, contains("flag1:3"));
+    assertThat(buffer.get("features", "flag1"), nullValue());
+  }
+
+  @Test
+  public void sameKeyInDifferentNamespacesIsNotCoalesced() {
+    buffer.add(DataModel.FEATURES, "features", "x", item(1));
+    buffer.add(DataModel.SEGMENTS, "segments", "x", item(1));
+    assertThat(buffer.size(), is(2));
+  }
+
+  @Test
+  public void failedWriteIsRetriedAtNextFlush() {
+    failWrites.set(true);
+    buffer.add(DataModel.FEATURES, "features", "flag1", item(1));
+    buffer.flush().join();
+    assertThat(written, empty());
+    assertThat(buffer.size(), is(1));
+
+    failWrites.set(false);
+    buffer.flush().join();
+    assertThat(written, contains("flag1:1"));
+  }
+
+  @Test
+  public void failedWriteDoesNotReplaceNewerPendingVersion() {
+    UpsertBuffer.Writer[] writer = new UpsertBuffer.Writer[1];
+    UpsertBuffer b = new UpsertBuffer((kind, key, item) -> writer[0].write(kind, key, item), 60000,
+        FanOut.DIRECT, LDLogger.none());
+    writer[0] = (kind, key, item) -> {
+      b.add(kind, "features", key, item(5)); // arrives while the write of version 1 is in progress
+      return DynamoDbClientAdapter.failedFuture(new RuntimeException("sorry"));
+    };
+    b.add(DataModel.FEATURES, "features", "flag1", item(1));
+    b.flush().join();
+    assertThat(b.get("features", "flag1").item.getVersion(), is(5));
+    writer[0] = (kind, key, item) -> CompletableFuture.completedFuture(true);
+    b.close();
+  }
+
+  @Test
+  public void itemRemainsVisibleUntilItsWriteCompletes() {
+    CompletableFuture<Boolean> write = new CompletableFuture<>();
+    UpsertBuffer b = new UpsertBuffer((kind, key, item) -> write, 60000, FanOut.DIRECT, LDLogger.none());
+    b.add(DataModel.FEATURES, "features", "flag1", item(1));
+    CompletableFuture<Void> flushed = b.flush();
+    assertThat(b.get("features", "flag1").item.getVersion(), is(1));
+
+    write.complete(true);
+    flushed.join();
+    assertThat(b.get("features", "flag1"), nullValue());
+    b.close();
+  }
+
+  @Test
+  public void successfulWriteDoesNotRemoveNewerPendingVersion() {
+    UpsertBuffer.Writer[] writer = new UpsertBuffer.Writer[1];
+    UpsertBuffer b = new UpsertBuffer((kind, key, item) -> writer[0].write(kind, key, item), 60000,
+        FanOut.DIRECT, LDLogger.none());
+    writer[0] = (kind, key, item) -> {
+      b.add(kind, "features", key, item(5)); // arrives while the write of version 1 is in progress
+      return CompletableFuture.completedFuture(true);
+    };
+    b.add(DataModel.FEATURES, "features", "flag1", item(1));
+    b.flush().join();
+    assertThat(b.get("features", "flag1").item.getVersion(), is(5));
+    writer[0] = (kind, key, item) -> CompletableFuture.completedFuture(true);
+    b.close();
+  }
+
+  @Test
+  public void closeWritesPendingItems() {
+    buffer.add(DataModel.FEATURES, "features", "flag1", item(1));
+    buffer.close();
+    assertThat(written, contains("flag1:1"));
+  }
+
+  private static SerializedItemDescriptor item(int version) {
+    return new SerializedItemDescriptor(version, false, "{}");
+  }
+}